@@ -143,6 +143,79 @@ public class maybeweijunException extends Exception {
         }
     }
 
+    public static class InvalidArchiveException extends maybeweijunException {
+        public InvalidArchiveException() {
+            super("Invalid archive format. Use: archive <days> [/todos] or archive find <keyword>");
+        }
+        public InvalidArchiveException(String message) {
+            super(message);
+        }
+    }
+
+    public static class InvalidDueException extends maybeweijunException {
+        public InvalidDueException() {
+            super("Invalid due format. Use: due before <yyyy-MM-dd HHmm> "
+                    + "or due between <yyyy-MM-dd HHmm> and <yyyy-MM-dd HHmm>");
+        }
+        public InvalidDueException(String message) {
+            super(message);
+        }
+    }
+
+    public static class EventConflictException extends maybeweijunException {
+        public EventConflictException() {
+            super("Event not added: it overlaps existing events.");
+        }
+        public EventConflictException(String message) {
+            super(message);
+        }
+    }
+
+    public static class InvalidEventQueryException extends maybeweijunException {
+        public InvalidEventQueryException() {
+            super("Invalid event query. Use: at <yyyy-MM-dd HHmm> "
+                    + "or during <yyyy-MM-dd HHmm> /to <yyyy-MM-dd HHmm>");
+        }
+        public InvalidEventQueryException(String message) {
+            super(message);
+        }
+    }
+
+    public static class InvalidFreeException extends maybeweijunException {
+        public InvalidFreeException() {
+            super("Invalid free format. Use: free <duration> between <yyyy-MM-dd HHmm> and <yyyy-MM-dd HHmm>, "
+                    + "with a duration such as 45m, 2h or 1h30m");
+        }
+        public InvalidFreeException(String message) {
+            super(message);
+        }
+    }
+
+    public static class InvalidSortException extends maybeweijunException {
+        public InvalidSortException() {
+            super("Invalid sort format. Use: sort, or sort by <key>[:asc|:desc],... "
+                    + "with keys type, date, desc and status");
+        }
+        public InvalidSortException(String message) {
+            super(message);
+        }
+    }
+
+    public static class InvalidNextException extends maybeweijunException {
+        public InvalidNextException() {
+            super("Invalid next format. Use: next <count>, with a count of at least 1");
+        }
+        public InvalidNextException(String message) {
+            super(message);
+        }
+    }
+
+    public static class ArchiveUnavailableException extends maybeweijunException {
+        public ArchiveUnavailableException() {
+            super("There is no archive to work with.");
+        }
+    }
+
     public static class StorageLoadException extends maybeweijunException {
         public StorageLoadException() {
             super("Failed to load storage file.");
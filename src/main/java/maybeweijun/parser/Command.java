@@ -0,0 +1,647 @@
+package maybeweijun.parser;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import maybeweijun.exception.maybeweijunException;
+import maybeweijun.storage.TaskArchive;
+import maybeweijun.task.CategoryIndex;
+import maybeweijun.task.Deadline;
+import maybeweijun.task.DeadlineIndex;
+import maybeweijun.task.Event;
+import maybeweijun.task.EventIndex;
+import maybeweijun.task.SortKey;
+import maybeweijun.task.Task;
+import maybeweijun.task.TaskList;
+import maybeweijun.task.TaskSorter;
+import maybeweijun.task.Todo;
+import maybeweijun.task.TrigramIndex;
+import maybeweijun.task.WordIndex;
+import maybeweijun.ui.Ui;
+
+/**
+ * A parsed user command, ready to run against a {@link TaskList}.
+ *
+ * <p>Commands are produced by {@link Parser#parse(String)} and hold only the validated arguments of
+ * the input, such as a zero-based index or parsed datetimes. They are immutable and do not touch any
+ * task list until {@link #execute} is called, so a batch of inputs can be parsed on several threads
+ * and the resulting commands executed one after another. Checks that depend on the list, such as
+ * whether an index exists, are made when the command is executed.
+ */
+public abstract class Command {
+    private static final int ONE_BASED_OFFSET = 1;
+    private static final int MAX_FREE_SLOTS = 10;
+
+    /**
+     * Runs the command.
+     *
+     * @param tasks   the task list to operate on
+     * @param ui      the user interface used to present results or feedback
+     * @param archive the archive that completed tasks are moved to, or null if archiving is unavailable
+     * @throws maybeweijunException if the command cannot be carried out on this list
+     */
+    public abstract void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException;
+
+    /**
+     * Returns whether the application should exit after this command.
+     *
+     * @return true only for {@code bye}
+     */
+    public boolean isExit() {
+        return false;
+    }
+
+    private static void requireTasks(TaskList tasks) throws maybeweijunException {
+        if (tasks.size() == 0) {
+            throw new maybeweijunException.EmptyListException();
+        }
+    }
+
+    private static void requireValidIndex(TaskList tasks, int index) throws maybeweijunException {
+        requireTasks(tasks);
+        if (!tasks.isValidIndex(index)) {
+            throw new maybeweijunException.InvalidTaskNumberException();
+        }
+    }
+
+    /**
+     * Ends the session.
+     */
+    public static final class Exit extends Command {
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) {
+        }
+
+        @Override
+        public boolean isExit() {
+            return true;
+        }
+    }
+
+    /**
+     * Input that failed to parse. Executing it throws the parse error, so a batch of commands
+     * reports each bad input at its place in the batch.
+     */
+    public static final class Invalid extends Command {
+        private final maybeweijunException error;
+
+        /**
+         * Creates a command that fails with the given error.
+         *
+         * @param error the error raised while parsing the input
+         */
+        public Invalid(maybeweijunException error) {
+            assert error != null : "Error must not be null";
+            this.error = error;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            throw error;
+        }
+    }
+
+    /**
+     * Prints the task list in list order.
+     */
+    public static final class ListTasks extends Command {
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireTasks(tasks);
+            ui.printTaskList(tasks);
+        }
+    }
+
+    /**
+     * Prints the tasks in a different order, leaving the list unchanged.
+     *
+     * <p>Without keys, tasks are ordered by category: todos, then deadlines, then events, keeping list
+     * order within each category. The order comes from the list's {@link CategoryIndex}, so no
+     * comparison sort runs. With keys, the tasks are ordered by {@link TaskSorter}, the first key being
+     * the most significant; ties keep list order.
+     */
+    public static final class Sort extends Command {
+        private final List<SortKey> keys;
+
+        /**
+         * Creates a sort command.
+         *
+         * @param keys the sort keys, most significant first, or an empty list to sort by category
+         */
+        public Sort(List<SortKey> keys) {
+            this.keys = List.copyOf(keys);
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireTasks(tasks);
+            if (keys.isEmpty()) {
+                ui.printTaskList(tasks.getCategoryIndex().sorted());
+            } else {
+                ui.printTaskList(new TaskList(TaskSorter.sort(tasks.toList(), keys)));
+            }
+        }
+    }
+
+    /**
+     * Marks a task as done.
+     */
+    public static final class Mark extends Command {
+        private final int index;
+
+        /**
+         * Creates a mark command.
+         *
+         * @param index zero-based index of the task
+         */
+        public Mark(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireValidIndex(tasks, index);
+            ui.printMarked(index + ONE_BASED_OFFSET, tasks.mark(index));
+        }
+    }
+
+    /**
+     * Marks a task as not done.
+     */
+    public static final class Unmark extends Command {
+        private final int index;
+
+        /**
+         * Creates an unmark command.
+         *
+         * @param index zero-based index of the task
+         */
+        public Unmark(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireValidIndex(tasks, index);
+            ui.printUnmarked(index + ONE_BASED_OFFSET, tasks.unmark(index));
+        }
+    }
+
+    /**
+     * Removes a task and reports it through {@link Ui#printDeleted(Task, int)}.
+     */
+    public static final class Delete extends Command {
+        private final int index;
+
+        /**
+         * Creates a delete command.
+         *
+         * @param index zero-based index of the task
+         */
+        public Delete(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireValidIndex(tasks, index);
+            Task removed = tasks.remove(index);
+            ui.printDeleted(removed, tasks.size());
+        }
+    }
+
+    /**
+     * Adds a new {@link Todo}.
+     */
+    public static final class AddTodo extends Command {
+        private final String description;
+
+        /**
+         * Creates an add-todo command.
+         *
+         * @param description non-empty description of the todo
+         */
+        public AddTodo(String description) {
+            assert description != null && !description.isEmpty() : "Description must not be empty";
+            this.description = description;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) {
+            Todo todo = new Todo(description);
+            tasks.add(todo);
+            ui.printTaskAdded(todo);
+        }
+    }
+
+    /**
+     * Adds a new {@link Deadline}.
+     */
+    public static final class AddDeadline extends Command {
+        private final String description;
+        private final LocalDateTime by;
+
+        /**
+         * Creates an add-deadline command.
+         *
+         * @param description non-empty description of the deadline
+         * @param by          due date and time
+         */
+        public AddDeadline(String description, LocalDateTime by) {
+            assert description != null && !description.isEmpty() : "Description must not be empty";
+            assert by != null : "Due time must not be null";
+            this.description = description;
+            this.by = by;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) {
+            Deadline deadline = new Deadline(description, by);
+            tasks.add(deadline);
+            ui.printTaskAdded(deadline);
+        }
+    }
+
+    /**
+     * Adds a new {@link Event}.
+     *
+     * <p>Existing events that overlap the new one are looked up in the list's {@link EventIndex} and
+     * reported through {@link Ui#printConflicts}. A strict event that overlaps is reported and rejected
+     * with an {@code EventConflictException} instead of being added.
+     */
+    public static final class AddEvent extends Command {
+        private final String description;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final boolean isStrict;
+
+        /**
+         * Creates an add-event command.
+         *
+         * @param description non-empty description of the event
+         * @param from        start date and time
+         * @param to          end date and time, after {@code from}
+         * @param isStrict    whether to reject the event if it overlaps existing events
+         */
+        public AddEvent(String description, LocalDateTime from, LocalDateTime to, boolean isStrict) {
+            assert description != null && !description.isEmpty() : "Description must not be empty";
+            assert from != null && to != null && to.isAfter(from) : "End must be after start";
+            this.description = description;
+            this.from = from;
+            this.to = to;
+            this.isStrict = isStrict;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            Event event = new Event(description, from, to);
+            List<Event> conflicts = tasks.getEventIndex().overlapping(from, to);
+            if (isStrict && !conflicts.isEmpty()) {
+                ui.printConflicts(event, conflicts);
+                throw new maybeweijunException.EventConflictException();
+            }
+            tasks.add(event);
+            ui.printTaskAdded(event);
+            if (!conflicts.isEmpty()) {
+                ui.printConflicts(event, conflicts);
+            }
+        }
+    }
+
+    /**
+     * Prints the tasks whose descriptions contain a text, ignoring case, in list order.
+     *
+     * <p>Candidates come from the list's {@link TrigramIndex} and are confirmed with a substring test,
+     * so the output is the same as a full scan.
+     */
+    public static final class Find extends Command {
+        private final String needle;
+
+        /**
+         * Creates a substring find command.
+         *
+         * @param query non-empty text to look for
+         */
+        public Find(String query) {
+            assert query != null && !query.isEmpty() : "Query must not be empty";
+            this.needle = query.toLowerCase();
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireTasks(tasks);
+            long[] candidates = tasks.getTrigramIndex().candidates(needle);
+            TaskList pool = candidates == null ? tasks : tasks.inListOrder(candidates);
+            List<Task> found = new ArrayList<>();
+            for (Task task : pool.toList()) {
+                if (task.getLowercaseDescription().contains(needle)) {
+                    found.add(task);
+                }
+            }
+            ui.printTaskList(new TaskList(found));
+        }
+    }
+
+    /**
+     * Prints the tasks containing every word, or any word, of a query through the list's
+     * {@link WordIndex}, in list order.
+     */
+    public static final class FindWords extends Command {
+        private final List<String> words;
+        private final boolean isAny;
+
+        /**
+         * Creates a whole-word find command.
+         *
+         * @param words non-empty list of words as produced by {@link WordIndex#tokenize}
+         * @param isAny whether any word suffices, rather than every word
+         */
+        public FindWords(List<String> words, boolean isAny) {
+            assert !words.isEmpty() : "Words must not be empty";
+            this.words = List.copyOf(words);
+            this.isAny = isAny;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireTasks(tasks);
+            WordIndex index = tasks.getWordIndex();
+            long[] ids = isAny ? index.findAny(words) : index.findAll(words);
+            ui.printTaskList(tasks.inListOrder(ids));
+        }
+    }
+
+    /**
+     * Prints the deadlines due before a time, ordered by due time, using the list's
+     * {@link DeadlineIndex}.
+     */
+    public static final class DueBefore extends Command {
+        private final LocalDateTime before;
+
+        /**
+         * Creates a due-before command.
+         *
+         * @param before exclusive upper bound on the due time
+         */
+        public DueBefore(LocalDateTime before) {
+            assert before != null : "Time must not be null";
+            this.before = before;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireTasks(tasks);
+            ui.printTaskList(new TaskList(tasks.getDeadlineIndex().dueBefore(before)));
+        }
+    }
+
+    /**
+     * Prints the deadlines due within a range, ordered by due time, using the list's
+     * {@link DeadlineIndex}.
+     */
+    public static final class DueBetween extends Command {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        /**
+         * Creates a due-between command.
+         *
+         * @param from inclusive lower bound on the due time
+         * @param to   inclusive upper bound on the due time, not before {@code from}
+         */
+        public DueBetween(LocalDateTime from, LocalDateTime to) {
+            assert from != null && to != null && !to.isBefore(from) : "Range must not be reversed";
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireTasks(tasks);
+            ui.printTaskList(new TaskList(tasks.getDeadlineIndex().dueBetween(from, to)));
+        }
+    }
+
+    /**
+     * Prints the deadlines that are not done and whose due time has passed when the command runs.
+     */
+    public static final class Overdue extends Command {
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireTasks(tasks);
+            ui.printTaskList(new TaskList(tasks.getDeadlineIndex().overdue(LocalDateTime.now())));
+        }
+    }
+
+    /**
+     * Prints the events in progress at a time, using the list's {@link EventIndex}. An event is in
+     * progress from its start up to, but not including, its end.
+     */
+    public static final class At extends Command {
+        private final LocalDateTime time;
+
+        /**
+         * Creates an at command.
+         *
+         * @param time the time to look up
+         */
+        public At(LocalDateTime time) {
+            assert time != null : "Time must not be null";
+            this.time = time;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireTasks(tasks);
+            ui.printTaskList(new TaskList(tasks.getEventIndex().at(time)));
+        }
+    }
+
+    /**
+     * Prints the events that overlap a window, using the list's {@link EventIndex}.
+     */
+    public static final class During extends Command {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        /**
+         * Creates a during command.
+         *
+         * @param from start of the window
+         * @param to   end of the window, exclusive and after {@code from}
+         */
+        public During(LocalDateTime from, LocalDateTime to) {
+            assert from != null && to != null && to.isAfter(from) : "End must be after start";
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireTasks(tasks);
+            ui.printTaskList(new TaskList(tasks.getEventIndex().overlapping(from, to)));
+        }
+    }
+
+    /**
+     * Prints up to {@code MAX_FREE_SLOTS} of the earliest gaps of at least a given length between
+     * events in a window. Gaps come from a single sweep over the list's {@link EventIndex}. Deadlines
+     * mark a point in time rather than a busy period, so they never take up a slot.
+     */
+    public static final class Free extends Command {
+        private final long minutes;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        /**
+         * Creates a free command.
+         *
+         * @param minutes positive minimum length of a gap
+         * @param from    start of the window
+         * @param to      end of the window, after {@code from}
+         */
+        public Free(long minutes, LocalDateTime from, LocalDateTime to) {
+            assert minutes > 0 : "Duration must be positive";
+            assert from != null && to != null && to.isAfter(from) : "End must be after start";
+            this.minutes = minutes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) {
+            ui.printFreeSlots(tasks.getEventIndex().freeSlots(from, to, minutes, MAX_FREE_SLOTS));
+        }
+    }
+
+    /**
+     * Prints the soonest unfinished deadlines and events that are not yet past: deadlines due from now
+     * on, and events that have not ended, with events in progress first. The {@link DeadlineIndex} and
+     * {@link EventIndex} each yield at most {@code count} candidates in time order, which are merged, so
+     * the whole list is never copied or sorted.
+     */
+    public static final class Next extends Command {
+        private final int count;
+
+        /**
+         * Creates a next command.
+         *
+         * @param count positive number of tasks to print
+         */
+        public Next(int count) {
+            assert count > 0 : "Count must be positive";
+            this.count = count;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            requireTasks(tasks);
+            LocalDateTime now = LocalDateTime.now();
+            List<Deadline> deadlines = tasks.getDeadlineIndex().pendingFrom(now, count);
+            List<Event> events = tasks.getEventIndex().pendingFrom(now, count);
+            List<Task> upcoming = new ArrayList<>(count);
+            int deadlineAt = 0;
+            int eventAt = 0;
+            while (upcoming.size() < count && (deadlineAt < deadlines.size() || eventAt < events.size())) {
+                boolean isDeadlineNext = eventAt == events.size() || (deadlineAt < deadlines.size()
+                        && deadlines.get(deadlineAt).getBy().isBefore(events.get(eventAt).getFrom()));
+                upcoming.add(isDeadlineNext ? deadlines.get(deadlineAt++) : events.get(eventAt++));
+            }
+            ui.printTaskList(new TaskList(upcoming));
+        }
+    }
+
+    /**
+     * Moves completed tasks that finished more than a number of days before the command runs into the
+     * archive. Deadlines count from their due time and events from their end. Todos carry no time, so
+     * their age is unknown; completed todos are archived only when asked for explicitly.
+     */
+    public static final class Archive extends Command {
+        private final int days;
+        private final boolean isIncludingTodos;
+
+        /**
+         * Creates an archive command.
+         *
+         * @param days             non-negative age in days
+         * @param isIncludingTodos whether completed todos are archived too, whatever their age
+         */
+        public Archive(int days, boolean isIncludingTodos) {
+            assert days >= 0 : "Days must not be negative";
+            this.days = days;
+            this.isIncludingTodos = isIncludingTodos;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            if (archive == null) {
+                throw new maybeweijunException.ArchiveUnavailableException();
+            }
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(days);
+            List<Integer> indices = new ArrayList<>();
+            List<Task> archived = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (isArchivable(tasks.get(i), cutoff)) {
+                    indices.add(i);
+                    archived.add(tasks.get(i));
+                }
+            }
+            try {
+                archive.append(archived);
+            } catch (IOException e) {
+                throw new maybeweijunException.StorageSaveException("Failed to write archive: " + e.getMessage());
+            }
+            // Remove from the back so that the remaining indices stay valid.
+            for (int i = indices.size() - 1; i >= 0; i--) {
+                tasks.remove(indices.get(i));
+            }
+            ui.printArchived(archived.size(), tasks.size());
+        }
+
+        private boolean isArchivable(Task task, LocalDateTime cutoff) {
+            if (!task.isDone()) {
+                return false;
+            }
+            if (task instanceof Deadline) {
+                return ((Deadline) task).getBy().isBefore(cutoff);
+            }
+            if (task instanceof Event) {
+                return ((Event) task).getTo().isBefore(cutoff);
+            }
+            return isIncludingTodos;
+        }
+    }
+
+    /**
+     * Streams the archive and prints the tasks whose descriptions contain a keyword.
+     */
+    public static final class ArchiveFind extends Command {
+        private final String keyword;
+
+        /**
+         * Creates an archive search command.
+         *
+         * @param keyword non-empty keyword to look for
+         */
+        public ArchiveFind(String keyword) {
+            assert keyword != null && !keyword.isEmpty() : "Keyword must not be empty";
+            this.keyword = keyword;
+        }
+
+        @Override
+        public void execute(TaskList tasks, Ui ui, TaskArchive archive) throws maybeweijunException {
+            if (archive == null) {
+                throw new maybeweijunException.ArchiveUnavailableException();
+            }
+            List<Task> found = new ArrayList<>();
+            try {
+                archive.find(keyword, found::add);
+            } catch (IOException e) {
+                throw new maybeweijunException.StorageLoadException("Failed to read archive: " + e.getMessage());
+            }
+            ui.printTaskList(new TaskList(found));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package maybeweijun.parser;
+
+import maybeweijun.exception.maybeweijunException;
+
+/**
+ * Parses the arguments of one command word, such as {@code mark} or {@code todo}, for {@link Parser}.
+ *
+ * <p>Parsers are registered with {@link Parser#register(String, CommandParser)} and looked up by the
+ * first word of the input, so adding a command does not touch the existing ones. A parser must not
+ * depend on any task list or other mutable state, since inputs may be parsed on several threads.
+ */
+@FunctionalInterface
+public interface CommandParser {
+
+    /**
+     * Validates the arguments and returns the command they describe.
+     *
+     * @param arguments the input after the command word, untrimmed and possibly empty
+     * @return the parsed command
+     * @throws maybeweijunException if the arguments are invalid for this command
+     */
+    Command parse(String arguments) throws maybeweijunException;
+}
@@ -1,64 +1,150 @@
 package maybeweijun.parser;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import maybeweijun.exception.maybeweijunException;
-import maybeweijun.task.Deadline;
-import maybeweijun.task.Event;
-import maybeweijun.task.Task;
+import maybeweijun.storage.TaskArchive;
+import maybeweijun.task.DateTimes;
+import maybeweijun.task.SortKey;
 import maybeweijun.task.TaskList;
-import maybeweijun.task.Todo;
+import maybeweijun.task.WordIndex;
 import maybeweijun.ui.Ui;
 
 /**
- * Parses and executes user commands to manipulate a {@link TaskList}.
+ * Parses user commands into {@link Command} objects that manipulate a {@link TaskList}.
  *
  * <p>Recognized commands include adding todos, deadlines and events, listing tasks,
- * marking/unmarking tasks, deleting tasks, and finding tasks by keyword. The parser
- * validates arguments, parses date/time values using the {@code yyyy-MM-dd HHmm}
- * pattern defined by {@code FORMATTER}, and delegates user-facing output to {@link Ui}.
+ * marking/unmarking tasks, deleting tasks, finding tasks by keyword, querying deadlines by due
+ * time, querying events by time window, finding free time between events, and moving completed
+ * tasks to a {@link TaskArchive}. Each command word maps to a {@link CommandParser} in a table
+ * that is looked up once per input, and further commands can be added with
+ * {@link #register(String, CommandParser)}. The parser validates arguments and parses date/time
+ * values using the {@code yyyy-MM-dd HHmm} pattern with {@link DateTimes}.
+ *
+ * <p>Parsing reads no task list, so {@link #parse(String)} and {@link #parseAll(List)} are safe to
+ * call from several threads once registration is done. Running the resulting commands against a list
+ * is a separate step; {@link #process(String, TaskList, Ui, TaskArchive)} does both for one input.
  *
  * <p>Invalid input is signaled by throwing the appropriate subclass of
  * {@link maybeweijun.exception.maybeweijunException}.
  *
+ * @see Command
  * @see TaskList
- * @see Ui
  * @see maybeweijun.exception.maybeweijunException
  */
 public class Parser {
 
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
-
-
-
     // Command strings to avoid magic numbers for substring indices
     private static final String CMD_BYE = "bye";
     private static final String CMD_LIST = "list";
-    private static final String CMD_MARK = "mark ";
-    private static final String CMD_UNMARK = "unmark ";
-    private static final String CMD_DELETE = "delete ";
+    private static final String CMD_MARK = "mark";
+    private static final String CMD_UNMARK = "unmark";
+    private static final String CMD_DELETE = "delete";
     private static final String CMD_TODO = "todo";
     private static final String CMD_DEADLINE = "deadline";
     private static final String CMD_EVENT = "event";
-    private static final String CMD_FIND = "find ";
+    private static final String CMD_FIND = "find";
+    private static final String FIND_ALL = "/all";
+    private static final String FIND_ANY = "/any";
     private static final String CMD_SORT = "sort";
+    private static final String SORT_BY = "by ";
+    private static final String SORT_KEY_SEPARATOR = ",";
+    private static final String SORT_ASCENDING = ":asc";
+    private static final String SORT_DESCENDING = ":desc";
+    private static final String CMD_ARCHIVE = "archive";
+    private static final String ARCHIVE_FIND = "find";
+    private static final String ARCHIVE_TODOS = "/todos";
+    private static final String CMD_DUE = "due";
+    private static final String DUE_BEFORE = "before ";
+    private static final String DUE_BETWEEN = "between ";
+    private static final String DUE_AND = " and ";
+    private static final String CMD_OVERDUE = "overdue";
+    private static final String CMD_AT = "at";
+    private static final String CMD_DURING = "during";
+    private static final String DURING_TO = "/to";
+    private static final String EVENT_STRICT = "/strict";
+    private static final String CMD_FREE = "free";
+    private static final String CMD_NEXT = "next";
+    private static final String FREE_BETWEEN = " between ";
+    private static final Pattern DURATION = Pattern.compile("(?:(\\d+)d)?(?:(\\d+)h)?(?:(\\d+)m?)?");
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final int MINUTES_PER_DAY = 24 * MINUTES_PER_HOUR;
 
     // Shared numeric constants
     private static final int SPLIT_LIMIT_TWO = 2;
     private static final int ONE_BASED_OFFSET = 1;
-    private static final int LAST_INDEX_OFFSET = 1;
+
+    // Parsers keyed by lower-case command word
+    private static final Map<String, CommandParser> COMMANDS = new HashMap<>();
+
+    static {
+        register(CMD_BYE, arguments -> {
+            requireNoArguments(arguments);
+            return new Command.Exit();
+        });
+        register(CMD_LIST, arguments -> {
+            requireNoArguments(arguments);
+            return new Command.ListTasks();
+        });
+        register(CMD_SORT, Parser::parseSort);
+        register(CMD_MARK, Parser::parseMark);
+        register(CMD_UNMARK, Parser::parseUnmark);
+        register(CMD_DELETE, Parser::parseDelete);
+        register(CMD_TODO, Parser::parseTodo);
+        register(CMD_DEADLINE, Parser::parseDeadline);
+        register(CMD_EVENT, Parser::parseEvent);
+        register(CMD_FIND, Parser::parseFind);
+        register(CMD_ARCHIVE, Parser::parseArchive);
+        register(CMD_DUE, Parser::parseDue);
+        register(CMD_OVERDUE, arguments -> {
+            requireNoArguments(arguments);
+            return new Command.Overdue();
+        });
+        register(CMD_AT, Parser::parseAt);
+        register(CMD_DURING, Parser::parseDuring);
+        register(CMD_FREE, Parser::parseFree);
+        register(CMD_NEXT, Parser::parseNext);
+    }
+
+    /**
+     * Registers the parser for a command word, replacing any parser already registered for it.
+     * Command words are matched case-insensitively against the first word of the input. Registration
+     * is not thread-safe and should happen before inputs are parsed.
+     *
+     * @param word   the command word, without spaces
+     * @param parser the parser for the arguments following that word
+     */
+    public static void register(String word, CommandParser parser) {
+        assert word != null && !word.isEmpty() && word.indexOf(' ') < 0 : "Command word must be a single word";
+        assert parser != null : "Parser must not be null";
+        COMMANDS.put(word.toLowerCase(), parser);
+    }
+
+    /**
+     * Removes the parser registered for a command word, if any. Used by tests that register their own
+     * commands, so that the shared table is left as they found it.
+     *
+     * @param word the command word
+     */
+    static void unregister(String word) {
+        COMMANDS.remove(word.toLowerCase());
+    }
 
     /**
      * Parses the given user input and executes the corresponding command on the provided tasks.
      *
      * <p>This method recognizes commands such as adding todos, deadlines and events,
      * listing tasks, marking/unmarking, deleting, finding tasks and sorting the list.
-     * It trims the input, routes the command to the appropriate handler, and uses {@link Ui}
-     * for user output.
+     * It is {@link #parse(String)} followed by {@link Command#execute}, with {@link Ui}
+     * used for user output.
      *
      * @param input the raw user input string (may be null)
      * @param tasks the task list to operate on
@@ -68,315 +154,482 @@ public class Parser {
      * @throws maybeweijunException if the input is recognized but invalid for a specific command
      */
     public static boolean process(String input, TaskList tasks, Ui ui) throws maybeweijunException {
+        return process(input, tasks, ui, null);
+    }
+
+    /**
+     * Parses and executes the given user input like {@link #process(String, TaskList, Ui)}, with
+     * {@code archive} commands operating on the given archive.
+     *
+     * @param input   the raw user input string (may be null)
+     * @param tasks   the task list to operate on
+     * @param ui      the user interface used to present results or feedback
+     * @param archive the archive that completed tasks are moved to, or null if archiving is unavailable
+     * @return true if the command indicates the application should exit, otherwise false
+     * @throws maybeweijunException if the input is recognized but invalid for a specific command
+     */
+    public static boolean process(String input, TaskList tasks, Ui ui, TaskArchive archive)
+            throws maybeweijunException {
         if (input == null) {
             return false;
         }
-        input = input.trim();
-
-        if (input.equalsIgnoreCase(CMD_BYE)) {
-            return true;
-        } else if (input.equalsIgnoreCase(CMD_LIST)) {
-            printTaskList(tasks, ui);
-        } else if (input.equalsIgnoreCase(CMD_SORT)) {
-            printSortedTaskList(tasks, ui);
-        } else if (input.startsWith(CMD_MARK)) {
-            handleMark(tasks, input, ui);
-        } else if (input.startsWith(CMD_UNMARK)) {
-            handleUnmark(tasks, input, ui);
-        } else if (input.startsWith(CMD_DELETE)) {
-            handleDelete(tasks, input, ui);
-        } else if (input.equals(CMD_TODO)) {
-            throw new maybeweijunException.OnlyTodoException();
-        } else if (input.equals(CMD_DEADLINE)) {
-            throw new maybeweijunException.OnlyDeadlineException();
-        } else if (input.equals(CMD_EVENT)) {
-            throw new maybeweijunException.OnlyEventException();
-        } else if (input.startsWith(CMD_TODO)) {
-            handleTodo(tasks, input, ui);
-        } else if (input.startsWith(CMD_DEADLINE)) {
-            handleDeadline(tasks, input, ui);
-        } else if (input.startsWith(CMD_EVENT)) {
-            handleEvent(tasks, input, ui);
-        } else if (input.startsWith(CMD_FIND)) {
-            handleFind(tasks, input, ui);
-        } else {
-            throw new maybeweijunException.InvalidCommandException();
-        }
-        return false;
+        Command command = parse(input);
+        command.execute(tasks, ui, archive);
+        return command.isExit();
     }
 
     /**
-     * Prints a new TaskList sorted by task description (case-insensitive).
+     * Parses one line of user input into a command without running it.
      *
-     * <p>A shallow copy of the original list is created and sorted by {@link Task#getDescription()}
-     * using a case-insensitive comparator so the original list order remains unchanged.
-     * The resulting sorted list is printed via {@link Ui#printTaskList(TaskList)}.
+     * <p>The input is trimmed and its first word looked up in the command table. A word that is only
+     * the prefix of a longer input word, such as {@code todo} in {@code todoread}, does not match.
      *
-     * @param tasks the task list to sort and print
-     * @param ui    the user interface used to print the sorted list
+     * @param input the raw user input string
+     * @return the parsed command
+     * @throws maybeweijunException if the command word is unknown or its arguments are invalid
      */
-    private static void printSortedTaskList(TaskList tasks, Ui ui) throws maybeweijunException {
-        if (tasks.size() == 0) {
-            throw new maybeweijunException.EmptyListException();
+    public static Command parse(String input) throws maybeweijunException {
+        assert input != null : "Input must not be null";
+        String trimmed = input.trim();
+        int wordEnd = 0;
+        while (wordEnd < trimmed.length() && !Character.isWhitespace(trimmed.charAt(wordEnd))) {
+            wordEnd++;
         }
-        List<Task> copy = new ArrayList<>(tasks.toList());
-        copy.sort(Comparator.comparingInt(Parser::categoryRank));
-        ui.printTaskList(new TaskList(copy));
+        CommandParser parser = COMMANDS.get(trimmed.substring(0, wordEnd).toLowerCase());
+        if (parser == null) {
+            throw new maybeweijunException.InvalidCommandException();
+        }
+        return parser.parse(trimmed.substring(wordEnd));
     }
 
     /**
-     * Sorts the provided task list by category and prints the sorted list via {@link Ui}.
+     * Parses a batch of inputs in parallel, keeping their order.
      *
-     * <p>A shallow copy of the list is created and sorted using {@link #categoryRank(Task)}
-     * so the original list order is not modified.
+     * <p>An input that fails to parse becomes a {@link Command.Invalid} holding the error, so the
+     * batch can still be executed in order and each error reported where its input was.
      *
-     * @param tasks the task list to sort and print
-     * @param ui    the user interface used to print the resulting list
+     * @param inputs the raw user input strings
+     * @return one command per input, in input order
      */
-    private static void printTaskList(TaskList tasks, Ui ui) throws maybeweijunException {
-        if (tasks.size() == 0) {
-            throw new maybeweijunException.EmptyListException();
+    public static List<Command> parseAll(List<String> inputs) {
+        return inputs.parallelStream()
+                .map(Parser::parseOrInvalid)
+                .collect(Collectors.toList());
+    }
+
+    private static Command parseOrInvalid(String input) {
+        try {
+            return parse(input);
+        } catch (maybeweijunException e) {
+            return new Command.Invalid(e);
         }
-        ui.printTaskList(tasks);
     }
 
     /**
-     * Returns an integer rank representing the category of the given task for sorting.
-     *
-     * <p>Todos are ranked lowest (0), deadlines next (1), events after that (2),
-     * and all other task types receive {@link Integer#MAX_VALUE}.
-     *
-     * @param t the task whose category rank is requested
-     * @return an integer rank used for ordering tasks by category
+     * Rejects arguments given to a command that takes none, such as {@code list}.
      */
-    private static int categoryRank(Task t) {
-        if (t instanceof Todo) return 0;
-        if (t instanceof Deadline) return 1;
-        if (t instanceof Event) return 2;
-        return Integer.MAX_VALUE;
+    private static void requireNoArguments(String arguments) throws maybeweijunException {
+        if (!arguments.isBlank()) {
+            throw new maybeweijunException.InvalidCommandException();
+        }
     }
 
     /**
-     * Parses a "mark" command from the input and marks the referenced task as done.
-     *
-     * <p>The command is expected to contain a one-based index after the "mark " prefix.
-     * If parsing fails or the index is out of range, the appropriate custom exception is thrown.
+     * Parses a {@code sort} command. A bare {@code sort} orders by category; {@code sort by
+     * <key>[:asc|:desc],...} orders by the given keys, the first key being the most significant.
+     * Keys are {@code type}, {@code date}, {@code desc} (description) and {@code status}.
      *
-     * @param tasks the task list containing the task to mark
-     * @param input the full user input starting with the "mark " prefix
-     * @param ui    the user interface used to display the marked task
-     * @throws maybeweijunException when the index is invalid or cannot be parsed
+     * @param arguments the input after the "sort" command word
+     * @return the sort command
+     * @throws maybeweijunException when the keys are invalid
      */
-    private static void handleMark(TaskList tasks, String input, Ui ui) throws maybeweijunException {
-        if (tasks.size() == 0) {
-            throw new maybeweijunException.EmptyListException();
+    private static Command parseSort(String arguments) throws maybeweijunException {
+        String argument = arguments.trim();
+        if (argument.isEmpty()) {
+            return new Command.Sort(List.of());
         }
+        if (!argument.startsWith(SORT_BY)) {
+            throw new maybeweijunException.InvalidSortException();
+        }
+        List<SortKey> keys = new ArrayList<>();
+        for (String part : argument.substring(SORT_BY.length()).split(SORT_KEY_SEPARATOR)) {
+            keys.add(parseSortKey(part.trim().toLowerCase()));
+        }
+        return new Command.Sort(keys);
+    }
+
+    /**
+     * Parses one sort key such as {@code date} or {@code date:desc}.
+     */
+    private static SortKey parseSortKey(String text) throws maybeweijunException {
+        boolean isDescending = text.endsWith(SORT_DESCENDING);
+        if (isDescending) {
+            text = text.substring(0, text.length() - SORT_DESCENDING.length());
+        } else if (text.endsWith(SORT_ASCENDING)) {
+            text = text.substring(0, text.length() - SORT_ASCENDING.length());
+        }
+        switch (text) {
+            case "type":
+                return new SortKey(SortKey.Field.TYPE, isDescending);
+            case "date":
+                return new SortKey(SortKey.Field.DATE, isDescending);
+            case "desc":
+            case "description":
+                return new SortKey(SortKey.Field.DESCRIPTION, isDescending);
+            case "status":
+                return new SortKey(SortKey.Field.STATUS, isDescending);
+            default:
+                throw new maybeweijunException.InvalidSortException();
+        }
+    }
+
+    /**
+     * Parses a "mark" command, which expects a one-based task number.
+     *
+     * @param arguments the input after the "mark" command word
+     * @return the mark command
+     * @throws maybeweijunException when the task number cannot be parsed
+     */
+    private static Command parseMark(String arguments) throws maybeweijunException {
         try {
-            int idx = Integer.parseInt(input.substring(CMD_MARK.length()).trim()) - ONE_BASED_OFFSET;
-            if (tasks.isValidIndex(idx)) {
-                tasks.get(idx).mark();
-                ui.printMarked(idx + ONE_BASED_OFFSET, tasks.get(idx));
-            } else {
-                throw new maybeweijunException.InvalidTaskNumberException();
-            }
+            return new Command.Mark(parseIndex(arguments));
         } catch (NumberFormatException e) {
             throw new maybeweijunException.InvalidMarkException();
         }
     }
 
     /**
-     * Parses an "unmark" command from the input and marks the referenced task as not done.
-     *
-     * <p>The command is expected to contain a one-based index after the "unmark " prefix.
-     * If parsing fails or the index is out of range, the appropriate custom exception is thrown.
+     * Parses an "unmark" command, which expects a one-based task number.
      *
-     * @param tasks the task list containing the task to unmark
-     * @param input the full user input starting with the "unmark " prefix
-     * @param ui    the user interface used to display the unmarked task
-     * @throws maybeweijunException when the index is invalid or cannot be parsed
+     * @param arguments the input after the "unmark" command word
+     * @return the unmark command
+     * @throws maybeweijunException when the task number cannot be parsed
      */
-    private static void handleUnmark(TaskList tasks, String input, Ui ui) throws maybeweijunException {
-        if (tasks.size() == 0) {
-            throw new maybeweijunException.EmptyListException();
-        }
+    private static Command parseUnmark(String arguments) throws maybeweijunException {
         try {
-            int idx = Integer.parseInt(input.substring(CMD_UNMARK.length()).trim()) - ONE_BASED_OFFSET;
-            if (tasks.isValidIndex(idx)) {
-                tasks.get(idx).unmark();
-                ui.printUnmarked(idx + ONE_BASED_OFFSET, tasks.get(idx));
-            } else {
-                throw new maybeweijunException.InvalidTaskNumberException();
-            }
+            return new Command.Unmark(parseIndex(arguments));
         } catch (NumberFormatException e) {
             throw new maybeweijunException.InvalidUnmarkException();
         }
     }
 
     /**
-     * Parses a "delete" command from the input and removes the referenced task.
-     *
-     * <p>The command is expected to contain a one-based index after the "delete " prefix.
-     * If parsing fails or the index is invalid, the appropriate custom exception is thrown.
-     * Successful deletion results in a call to {@link Ui#printDeleted(Task, int)}.
+     * Parses a "delete" command, which expects a one-based task number.
      *
-     * @param tasks the task list from which to remove the task
-     * @param input the full user input starting with the "delete " prefix
-     * @param ui    the user interface used to report the deletion
-     * @throws maybeweijunException when the index is invalid or cannot be parsed
+     * @param arguments the input after the "delete" command word
+     * @return the delete command
+     * @throws maybeweijunException when the task number cannot be parsed
      */
-    private static void handleDelete(TaskList tasks, String input, Ui ui) throws maybeweijunException {
-        if (tasks.size() == 0) {
-            throw new maybeweijunException.EmptyListException();
-        }
+    private static Command parseDelete(String arguments) throws maybeweijunException {
         try {
-            int idx = Integer.parseInt(input.substring(CMD_DELETE.length()).trim()) - ONE_BASED_OFFSET;
-            if (tasks.isValidIndex(idx)) {
-                Task toRemove = tasks.get(idx);
-                tasks.remove(idx);
-                ui.printDeleted(toRemove, tasks.size());
-            } else {
-                throw new maybeweijunException.InvalidTaskNumberException();
-            }
+            return new Command.Delete(parseIndex(arguments));
         } catch (NumberFormatException e) {
             throw new maybeweijunException.InvalidDeleteException();
         }
     }
 
     /**
-     * Finds tasks whose descriptions contain the given keyword and prints them.
-     *
-     * <p>The search is case-insensitive and matches any substring in the task descriptions.
-     * If the search keyword is empty, an {@code EmptyFindException} is thrown.
+     * Converts a one-based task number to a zero-based index. Whether the index exists is checked
+     * when the command runs.
+     */
+    private static int parseIndex(String arguments) {
+        return Integer.parseInt(arguments.trim()) - ONE_BASED_OFFSET;
+    }
+
+    /**
+     * Parses a "find" command. A plain query is matched as a case-insensitive substring of the task
+     * descriptions. With the {@code /all} or {@code /any} flag, the query is split into words that are
+     * matched whole, requiring every word or any word.
      *
-     * @param tasks the task list to search
-     * @param input the full user input starting with the "find " prefix
-     * @param ui    the user interface used to print the matching tasks
-     * @throws maybeweijunException when the search keyword is empty
+     * @param arguments the input after the "find" command word
+     * @return the find command
+     * @throws maybeweijunException when the search query is empty
      */
-    private static void handleFind(TaskList tasks, String input, Ui ui) throws maybeweijunException {
-        if (tasks.size() == 0) {
-            throw new maybeweijunException.EmptyListException();
+    private static Command parseFind(String arguments) throws maybeweijunException {
+        String query = arguments.trim();
+        boolean isAll = query.startsWith(FIND_ALL);
+        boolean isAny = query.startsWith(FIND_ANY);
+        if (isAll || isAny) {
+            String flag = isAll ? FIND_ALL : FIND_ANY;
+            List<String> words = WordIndex.tokenize(query.substring(flag.length()));
+            if (words.isEmpty()) {
+                throw new maybeweijunException.EmptyFindException();
+            }
+            return new Command.FindWords(words, isAny);
         }
-        String description = input.substring(CMD_FIND.length()).trim();
-        if (description.isEmpty()) {
+        if (query.isEmpty()) {
             throw new maybeweijunException.EmptyFindException();
         }
-        TaskList foundTasks = new TaskList();
-        for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            if (task.getDescription().toLowerCase().contains(description.toLowerCase())) {
-                foundTasks.add(task);
+        return new Command.Find(query);
+    }
+
+    /**
+     * Parses a "due" command: {@code due before <datetime>} for the deadlines due before the given
+     * time, and {@code due between <a> and <b>} for those due from {@code a} to {@code b} inclusive.
+     *
+     * @param arguments the input after the "due" command word
+     * @return the due command
+     * @throws maybeweijunException when the arguments are malformed or a datetime is invalid
+     */
+    private static Command parseDue(String arguments) throws maybeweijunException {
+        String argument = arguments.trim();
+        if (argument.startsWith(DUE_BEFORE)) {
+            return new Command.DueBefore(parseDateTime(argument.substring(DUE_BEFORE.length())));
+        } else if (argument.startsWith(DUE_BETWEEN)) {
+            String[] bounds = argument.substring(DUE_BETWEEN.length()).split(DUE_AND, SPLIT_LIMIT_TWO);
+            if (bounds.length != SPLIT_LIMIT_TWO) {
+                throw new maybeweijunException.InvalidDueException();
+            }
+            LocalDateTime from = parseDateTime(bounds[0]);
+            LocalDateTime to = parseDateTime(bounds[1]);
+            if (to.isBefore(from)) {
+                throw new maybeweijunException.InvalidDateRangeException();
             }
+            return new Command.DueBetween(from, to);
+        } else {
+            throw new maybeweijunException.InvalidDueException();
         }
-        ui.printTaskList(foundTasks);
     }
 
     /**
-     * Parses a "todo" command, validates the description, and adds a new Todo to the list.
+     * Parses an "at" command for the events in progress at the given time.
      *
-     * <p>If the description is empty after the "todo" prefix, an {@code EmptyTodoException}
-     * is thrown. On success, the newly added task is printed.
+     * @param arguments the input after the "at" command word
+     * @return the at command
+     * @throws maybeweijunException when the datetime is missing or invalid
+     */
+    private static Command parseAt(String arguments) throws maybeweijunException {
+        String argument = arguments.trim();
+        if (argument.isEmpty()) {
+            throw new maybeweijunException.InvalidEventQueryException();
+        }
+        return new Command.At(parseDateTime(argument));
+    }
+
+    /**
+     * Parses a "during" command for the events that overlap the window from {@code a} up to
+     * {@code b}.
      *
-     * @param tasks the task list to which the new Todo will be added
-     * @param input the full user input starting with the "todo" prefix
-     * @param ui    the user interface used to print the added task
+     * @param arguments the input after the "during" command word
+     * @return the during command
+     * @throws maybeweijunException when the window is malformed, invalid or empty
+     */
+    private static Command parseDuring(String arguments) throws maybeweijunException {
+        String[] bounds = arguments.split(DURING_TO, SPLIT_LIMIT_TWO);
+        if (bounds.length != SPLIT_LIMIT_TWO || bounds[0].isBlank() || bounds[1].isBlank()) {
+            throw new maybeweijunException.InvalidEventQueryException();
+        }
+        LocalDateTime from = parseDateTime(bounds[0]);
+        LocalDateTime to = parseDateTime(bounds[1]);
+        if (!to.isAfter(from)) {
+            throw new maybeweijunException.InvalidDateRangeException();
+        }
+        return new Command.During(from, to);
+    }
+
+    /**
+     * Parses a "free" command, {@code free <duration> between <a> and <b>}, for the gaps of at least
+     * that duration between events in the window from {@code a} up to {@code b}.
+     *
+     * @param arguments the input after the "free" command word
+     * @return the free command
+     * @throws maybeweijunException when the arguments are malformed or the window is invalid
+     */
+    private static Command parseFree(String arguments) throws maybeweijunException {
+        String[] parts = arguments.split(FREE_BETWEEN, SPLIT_LIMIT_TWO);
+        if (parts.length != SPLIT_LIMIT_TWO) {
+            throw new maybeweijunException.InvalidFreeException();
+        }
+        long minutes = parseDurationMinutes(parts[0].trim());
+        String[] bounds = parts[1].split(DUE_AND, SPLIT_LIMIT_TWO);
+        if (bounds.length != SPLIT_LIMIT_TWO) {
+            throw new maybeweijunException.InvalidFreeException();
+        }
+        LocalDateTime from = parseDateTime(bounds[0]);
+        LocalDateTime to = parseDateTime(bounds[1]);
+        if (!to.isAfter(from)) {
+            throw new maybeweijunException.InvalidDateRangeException();
+        }
+        return new Command.Free(minutes, from, to);
+    }
+
+    /**
+     * Parses a "next" command, {@code next <k>}, for the k soonest unfinished deadlines and events.
+     *
+     * @param arguments the input after the "next" command word
+     * @return the next command
+     * @throws maybeweijunException when the count is missing, malformed or not positive
+     */
+    private static Command parseNext(String arguments) throws maybeweijunException {
+        int count;
+        try {
+            count = Integer.parseInt(arguments.trim());
+        } catch (NumberFormatException e) {
+            throw new maybeweijunException.InvalidNextException();
+        }
+        if (count <= 0) {
+            throw new maybeweijunException.InvalidNextException();
+        }
+        return new Command.Next(count);
+    }
+
+    /**
+     * Parses a duration such as {@code 90}, {@code 45m}, {@code 2h}, {@code 1h30m} or {@code 1d} into
+     * a positive number of minutes. A bare number counts as minutes.
+     */
+    private static long parseDurationMinutes(String text) throws maybeweijunException {
+        Matcher matcher = DURATION.matcher(text);
+        if (text.isEmpty() || !matcher.matches()) {
+            throw new maybeweijunException.InvalidFreeException();
+        }
+        long minutes;
+        try {
+            minutes = Math.addExact(Math.addExact(
+                    Math.multiplyExact(parseOrZero(matcher.group(1)), MINUTES_PER_DAY),
+                    Math.multiplyExact(parseOrZero(matcher.group(2)), MINUTES_PER_HOUR)),
+                    parseOrZero(matcher.group(3)));
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new maybeweijunException.InvalidFreeException();
+        }
+        if (minutes <= 0) {
+            throw new maybeweijunException.InvalidFreeException();
+        }
+        return minutes;
+    }
+
+    private static long parseOrZero(String digits) {
+        return digits == null ? 0 : Long.parseLong(digits);
+    }
+
+    /**
+     * Parses a datetime argument in the {@code yyyy-MM-dd HHmm} pattern.
+     */
+    private static LocalDateTime parseDateTime(String text) throws maybeweijunException {
+        try {
+            return DateTimes.parse(text.trim());
+        } catch (DateTimeParseException e) {
+            throw new maybeweijunException.InvalidDateTimeException();
+        }
+    }
+
+    /**
+     * Parses an "archive" command: either {@code archive <days> [/todos]}, which moves completed tasks
+     * older than the given number of days into the archive, along with completed todos if the flag is
+     * given, or {@code archive find <keyword>}, which searches the archive.
+     *
+     * @param arguments the input after the "archive" command word
+     * @return the archive command
+     * @throws maybeweijunException when the arguments are invalid
+     */
+    private static Command parseArchive(String arguments) throws maybeweijunException {
+        String argument = arguments.trim();
+        if (argument.equals(ARCHIVE_FIND) || argument.startsWith(ARCHIVE_FIND + " ")) {
+            String keyword = argument.substring(ARCHIVE_FIND.length()).trim();
+            if (keyword.isEmpty()) {
+                throw new maybeweijunException.EmptyFindException();
+            }
+            return new Command.ArchiveFind(keyword);
+        }
+        boolean isIncludingTodos = argument.endsWith(ARCHIVE_TODOS);
+        if (isIncludingTodos) {
+            argument = argument.substring(0, argument.length() - ARCHIVE_TODOS.length()).trim();
+        }
+        int days;
+        try {
+            days = Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            throw new maybeweijunException.InvalidArchiveException();
+        }
+        if (days < 0) {
+            throw new maybeweijunException.InvalidArchiveException();
+        }
+        return new Command.Archive(days, isIncludingTodos);
+    }
+
+    /**
+     * Parses a "todo" command and validates the description.
+     *
+     * <p>If nothing follows the "todo" command word, an {@code OnlyTodoException} is thrown.
+     *
+     * @param arguments the input after the "todo" command word
+     * @return the add-todo command
      * @throws maybeweijunException when the todo description is empty
      */
-    private static void handleTodo(TaskList tasks, String input, Ui ui) throws maybeweijunException {
-        String description = input.substring(CMD_TODO.length()).trim();
+    private static Command parseTodo(String arguments) throws maybeweijunException {
+        if (arguments.isEmpty()) {
+            throw new maybeweijunException.OnlyTodoException();
+        }
+        String description = arguments.trim();
         if (description.isEmpty()) {
             throw new maybeweijunException.EmptyTodoException();
         }
-        tasks.add(new Todo(description));
-        printTaskAdded(tasks, ui);
+        return new Command.AddTodo(description);
     }
 
     /**
-     * Parses a "deadline" command, validates description and date, and adds a new Deadline.
+     * Parses a "deadline" command and validates description and date.
      *
-     * <p>The input after the "deadline" prefix is split on {@code "/by"} into description
-     * and datetime parts. The datetime must parse using the {@code FORMATTER} pattern
+     * <p>The arguments after the "deadline" command word are split on {@code "/by"} into description
+     * and datetime parts. The datetime must parse with {@link DateTimes}
      * ({@code yyyy-MM-dd HHmm}); otherwise {@code InvalidDateTimeException} is thrown.
      *
-     * @param tasks the task list to which the new Deadline will be added
-     * @param input the full user input starting with the "deadline" prefix
-     * @param ui    the user interface used to print the added task
+     * @param arguments the input after the "deadline" command word
+     * @return the add-deadline command
      * @throws maybeweijunException when the description or date is empty or the date is invalid
      */
-    private static void handleDeadline(TaskList tasks, String input, Ui ui) throws maybeweijunException {
-        String[] parts = input.substring(CMD_DEADLINE.length()).split("/by", SPLIT_LIMIT_TWO);
-        if (parts.length == SPLIT_LIMIT_TWO) {
-            String description = parts[0].trim();
-            String by = parts[1].trim();
-            if (description.isEmpty() || by.isEmpty()) {
-                throw new maybeweijunException.EmptyDeadlineException();
-            }
-            try {
-                LocalDateTime.parse(by, FORMATTER);
-            } catch (Exception e) {
-                throw new maybeweijunException.InvalidDateTimeException();
-            }
-            tasks.add(new Deadline(description, by));
-            printTaskAdded(tasks, ui);
-        } else {
+    private static Command parseDeadline(String arguments) throws maybeweijunException {
+        if (arguments.isEmpty()) {
+            throw new maybeweijunException.OnlyDeadlineException();
+        }
+        String[] parts = arguments.split("/by", SPLIT_LIMIT_TWO);
+        if (parts.length != SPLIT_LIMIT_TWO) {
             throw new maybeweijunException.EmptyDeadlineException();
         }
+        String description = parts[0].trim();
+        String by = parts[1].trim();
+        if (description.isEmpty() || by.isEmpty()) {
+            throw new maybeweijunException.EmptyDeadlineException();
+        }
+        return new Command.AddDeadline(description, parseDateTime(by));
     }
 
     /**
-     * Parses an "event" command, validates description and start/end datetimes, and adds a new Event.
+     * Parses an "event" command and validates description and start/end datetimes.
      *
-     * <p>The input after the "event" prefix is split on {@code "/from"} and {@code "/to"} to obtain
-     * the description, start and end datetimes. Datetimes must parse with {@code FORMATTER}, and
-     * the end must be strictly after the start; otherwise the corresponding exception is thrown.
+     * <p>The arguments after the "event" command word are split on {@code "/from"} and {@code "/to"}
+     * to obtain the description, start and end datetimes. Datetimes must parse with {@link DateTimes},
+     * and the end must be strictly after the start; otherwise the corresponding exception is thrown.
+     * A trailing {@code /strict} flag makes the event be rejected if it overlaps existing events.
      *
-     * @param tasks the task list to which the new Event will be added
-     * @param input the full user input starting with the "event" prefix
-     * @param ui    the user interface used to print the added task
+     * @param arguments the input after the "event" command word
+     * @return the add-event command
      * @throws maybeweijunException when description or datetimes are empty, invalid, or out of range
      */
-    private static void handleEvent(TaskList tasks, String input, Ui ui) throws maybeweijunException {
-        String[] parts = input.substring(CMD_EVENT.length()).split("/from", SPLIT_LIMIT_TWO);
-        if (parts.length == SPLIT_LIMIT_TWO) {
-            String description = parts[0].trim();
-            String[] timeParts = parts[1].split("/to", SPLIT_LIMIT_TWO);
-            if (timeParts.length == SPLIT_LIMIT_TWO) {
-                String start_datetime = timeParts[0].trim();
-                String end_datetime = timeParts[1].trim();
-                if (description.isEmpty() || start_datetime.isEmpty() || end_datetime.isEmpty()) {
-                    throw new maybeweijunException.EmptyEventException();
-                }
-                LocalDateTime start;
-                LocalDateTime end;
-                try {
-                    start = LocalDateTime.parse(start_datetime, FORMATTER);
-                    end = LocalDateTime.parse(end_datetime, FORMATTER);
-                } catch (Exception e) {
-                    throw new maybeweijunException.InvalidDateTimeException();
-                }
-                if (!end.isAfter(start)) {
-                    throw new maybeweijunException.InvalidDateRangeException();
-                }
-                tasks.add(new Event(description, start_datetime, end_datetime));
-                printTaskAdded(tasks, ui);
-            } else {
-                throw new maybeweijunException.EmptyEventException();
-            }
-        } else {
+    private static Command parseEvent(String arguments) throws maybeweijunException {
+        if (arguments.isEmpty()) {
+            throw new maybeweijunException.OnlyEventException();
+        }
+        boolean isStrict = arguments.endsWith(EVENT_STRICT);
+        String details = isStrict ? arguments.substring(0, arguments.length() - EVENT_STRICT.length()) : arguments;
+        String[] parts = details.split("/from", SPLIT_LIMIT_TWO);
+        if (parts.length != SPLIT_LIMIT_TWO) {
             throw new maybeweijunException.EmptyEventException();
         }
-    }
-
-    /**
-     * Prints the most recently added task from the provided task list.
-     *
-     * <p>The last element is determined using a constant offset to support the one-based
-     * indexing used for user-visible messages.
-     *
-     * @param tasks the task list containing the newly added task
-     * @param ui    the user interface used to print the added task
-     */
-    private static void printTaskAdded(TaskList tasks, Ui ui) {
-        ui.printTaskAdded(tasks.get(tasks.size() - LAST_INDEX_OFFSET));
+        String description = parts[0].trim();
+        String[] timeParts = parts[1].split("/to", SPLIT_LIMIT_TWO);
+        if (timeParts.length != SPLIT_LIMIT_TWO) {
+            throw new maybeweijunException.EmptyEventException();
+        }
+        String startText = timeParts[0].trim();
+        String endText = timeParts[1].trim();
+        if (description.isEmpty() || startText.isEmpty() || endText.isEmpty()) {
+            throw new maybeweijunException.EmptyEventException();
+        }
+        LocalDateTime start = parseDateTime(startText);
+        LocalDateTime end = parseDateTime(endText);
+        if (!end.isAfter(start)) {
+            throw new maybeweijunException.InvalidDateRangeException();
+        }
+        return new Command.AddEvent(description, start, end, isStrict);
     }
 }
@@ -0,0 +1,150 @@
+package maybeweijun.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import maybeweijun.task.Task;
+import maybeweijun.task.TaskMutation;
+
+/**
+ * Persists task mutations on a background thread so that callers never block on disk I/O.
+ *
+ * <p>Mutations submitted in quick succession are group-committed: once the first mutation of a
+ * batch arrives, the writer waits at most {@code maxDelayMillis} for further mutations and then hands
+ * the whole batch to {@link StorageBackend#apply(List, List)} in one go. The writer keeps its own copy of the
+ * task list, holding its own copies of the tasks and updated by replaying the same mutations, so it
+ * never reads or changes the caller's list or tasks concurrently.
+ */
+public class AsyncStorageWriter {
+    private final StorageBackend storage;
+    private final long maxDelayMillis;
+    private final List<Task> shadow;
+    private final ArrayList<TaskMutation> queue = new ArrayList<>();
+    private final Thread thread;
+
+    private long firstPendingAt;
+    private long submittedCount = 0;
+    private long writtenCount = 0;
+    private boolean isFlushRequested = false;
+    private boolean isClosed = false;
+
+    /**
+     * Creates and starts a writer.
+     *
+     * @param storage        the storage that receives batches of mutations
+     * @param initial        the tasks as currently persisted; each task is copied
+     * @param maxDelayMillis maximum time a submitted mutation may wait before being written
+     */
+    public AsyncStorageWriter(StorageBackend storage, List<Task> initial, long maxDelayMillis) {
+        assert storage != null : "Storage must not be null";
+        assert maxDelayMillis >= 0 : "Maximum delay must not be negative";
+        this.storage = storage;
+        this.maxDelayMillis = maxDelayMillis;
+        this.shadow = new ArrayList<>(initial.size());
+        for (Task task : initial) {
+            shadow.add(task.copy());
+        }
+        this.thread = new Thread(this::run, "storage-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues mutations for writing and returns immediately. Empty lists are ignored.
+     *
+     * @param mutations mutations in the order they were applied
+     */
+    public synchronized void submit(List<TaskMutation> mutations) {
+        assert !isClosed : "Writer has been closed";
+        if (mutations.isEmpty()) {
+            return;
+        }
+        if (queue.isEmpty()) {
+            firstPendingAt = System.currentTimeMillis();
+        }
+        queue.addAll(mutations);
+        submittedCount += mutations.size();
+        notifyAll();
+    }
+
+    /**
+     * Writes any queued mutations without waiting for the delay to expire, and blocks until they
+     * have been handed to storage.
+     */
+    public synchronized void flush() {
+        isFlushRequested = true;
+        notifyAll();
+        while (writtenCount < submittedCount && thread.isAlive()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Flushes pending mutations, stops the writer thread and closes the underlying storage.
+     */
+    public void close() {
+        flush();
+        synchronized (this) {
+            isClosed = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        storage.close();
+    }
+
+    private void run() {
+        while (true) {
+            List<TaskMutation> batch = nextBatch();
+            if (batch == null) {
+                return;
+            }
+            for (TaskMutation mutation : batch) {
+                mutation.applyTo(shadow);
+            }
+            try {
+                storage.apply(batch, shadow);
+            } catch (RuntimeException e) {
+                System.out.println("Failed to save state: " + e.getMessage());
+            }
+            synchronized (this) {
+                writtenCount += batch.size();
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits for the next batch to become due, or returns null once closed with nothing left to write.
+     */
+    private synchronized List<TaskMutation> nextBatch() {
+        try {
+            while (queue.isEmpty()) {
+                if (isClosed) {
+                    return null;
+                }
+                isFlushRequested = false;
+                wait();
+            }
+            long deadline = firstPendingAt + maxDelayMillis;
+            long now = System.currentTimeMillis();
+            while (!isClosed && !isFlushRequested && now < deadline) {
+                wait(deadline - now);
+                now = System.currentTimeMillis();
+            }
+        } catch (InterruptedException e) {
+            return null;
+        }
+        List<TaskMutation> batch = new ArrayList<>(queue);
+        queue.clear();
+        return batch;
+    }
+}
@@ -0,0 +1,86 @@
+package maybeweijun.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replaces a file atomically by writing a temporary sibling and renaming it over the target.
+ * Readers therefore see either the complete old content or the complete new content, never a mix.
+ */
+final class AtomicFile {
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Writes the new content of a file through a channel.
+     */
+    interface Content {
+        void writeTo(FileChannel channel) throws IOException;
+    }
+
+    private AtomicFile() {
+    }
+
+    /**
+     * Replaces {@code target} with the given content.
+     *
+     * @param target   the file to replace
+     * @param content  writes the new content
+     * @param isForced whether to fsync the data and the directory entry before returning
+     * @throws IOException if the content cannot be written or moved into place
+     */
+    static void write(Path target, Content content, boolean isForced) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            content.writeTo(channel);
+            if (isForced) {
+                channel.force(true);
+            }
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (isForced) {
+            forceDirectory(target.toAbsolutePath().getParent());
+        }
+    }
+
+    /**
+     * Forces a file written earlier without {@code isForced}, and its directory entry, to the disk.
+     * A file that has since been replaced or deleted is skipped.
+     *
+     * @param target the file to force
+     * @throws IOException if the sync fails
+     */
+    static void force(Path target) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        forceDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Makes the rename itself durable. Not every platform allows opening a directory, in which case
+     * the rename is left to the file system's own ordering guarantees.
+     */
+    private static void forceDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // directories cannot be opened for sync on this platform
+        }
+    }
+}
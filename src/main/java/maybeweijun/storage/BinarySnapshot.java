@@ -0,0 +1,173 @@
+package maybeweijun.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import maybeweijun.task.DateTimes;
+import maybeweijun.task.Deadline;
+import maybeweijun.task.Event;
+import maybeweijun.task.Task;
+import maybeweijun.task.Todo;
+
+/**
+ * Reads and writes the binary snapshot format.
+ *
+ * <p>The file starts with a 32-byte header ({@code magic, version, count, reserved, sequence}),
+ * followed by {@code count} fixed 32-byte records and a string heap holding the UTF-8 descriptions:
+ * <pre>
+ * record := type:u8 done:u8 reserved:u16 descOffset:i32 descLength:i32 reserved:i32 first:i64 second:i64
+ * </pre>
+ * {@code first}/{@code second} hold the deadline or event start/end as minutes since the epoch (UTC),
+ * so loading needs no text parsing at all. The file is read through a {@link MappedByteBuffer}.
+ */
+final class BinarySnapshot {
+    private static final int MAGIC = 0x4D57424E;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = 32;
+    private static final byte TYPE_TODO = 'T';
+    private static final byte TYPE_DEADLINE = 'D';
+    private static final byte TYPE_EVENT = 'E';
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Reads every well-formed record of the snapshot into {@code out}, skipping malformed records.
+     *
+     * @param path snapshot file
+     * @param out  list receiving the tasks in file order
+     * @return the journal sequence number stored in the header
+     * @throws IOException if the file cannot be read or does not carry a valid header
+     */
+    static long read(Path path, List<Task> out) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid binary snapshot size: " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Invalid binary snapshot header");
+            }
+            int count = buffer.getInt(8);
+            long sequence = buffer.getLong(16);
+            long heapStart = HEADER_BYTES + (long) count * RECORD_BYTES;
+            if (count < 0 || heapStart > size) {
+                throw new IOException("Invalid binary snapshot record count: " + count);
+            }
+            byte[] heap = new byte[(int) (size - heapStart)];
+            buffer.get((int) heapStart, heap);
+
+            for (int i = 0; i < count; i++) {
+                Task task = readRecord(buffer, HEADER_BYTES + i * RECORD_BYTES, heap);
+                if (task != null) {
+                    out.add(task);
+                }
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Writes the tasks to a temporary file next to {@code path} and moves it into place.
+     *
+     * @param path     snapshot file
+     * @param tasks    tasks to write
+     * @param sequence journal sequence number covered by this snapshot
+     * @param isForced whether to fsync before returning
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path path, List<Task> tasks, long sequence, boolean isForced) throws IOException {
+        byte[][] descriptions = new byte[tasks.size()][];
+        long heapBytes = 0;
+        for (int i = 0; i < descriptions.length; i++) {
+            descriptions[i] = tasks.get(i).getDescription().getBytes(StandardCharsets.UTF_8);
+            heapBytes += descriptions[i].length;
+        }
+        long total = HEADER_BYTES + (long) tasks.size() * RECORD_BYTES + heapBytes;
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Too many tasks for a binary snapshot");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) total);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(tasks.size()).putInt(0).putLong(sequence).putLong(0);
+        int heapOffset = 0;
+        for (int i = 0; i < descriptions.length; i++) {
+            writeRecord(buffer, tasks.get(i), heapOffset, descriptions[i].length);
+            heapOffset += descriptions[i].length;
+        }
+        for (byte[] description : descriptions) {
+            buffer.put(description);
+        }
+        buffer.flip();
+
+        AtomicFile.write(path, channel -> {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }, isForced);
+    }
+
+    private static Task readRecord(ByteBuffer buffer, int offset, byte[] heap) {
+        byte type = buffer.get(offset);
+        boolean isDone = buffer.get(offset + 1) != 0;
+        int descOffset = buffer.getInt(offset + 4);
+        int descLength = buffer.getInt(offset + 8);
+        if (descOffset < 0 || descLength < 0 || descOffset > heap.length - descLength) {
+            return null;
+        }
+        String description = new String(heap, descOffset, descLength, StandardCharsets.UTF_8);
+        long first = buffer.getLong(offset + 16);
+        long second = buffer.getLong(offset + 24);
+
+        Task task;
+        switch (type) {
+            case TYPE_TODO:
+                task = new Todo(description);
+                break;
+            case TYPE_DEADLINE:
+                task = new Deadline(description, DateTimes.fromEpochMinute(first));
+                break;
+            case TYPE_EVENT:
+                task = new Event(description, DateTimes.fromEpochMinute(first), DateTimes.fromEpochMinute(second));
+                break;
+            default:
+                return null;
+        }
+        if (isDone) {
+            task.mark();
+        }
+        return task;
+    }
+
+    private static void writeRecord(ByteBuffer buffer, Task task, int descOffset, int descLength) {
+        byte type;
+        long first = 0;
+        long second = 0;
+        if (task instanceof Deadline) {
+            type = TYPE_DEADLINE;
+            first = DateTimes.toEpochMinute(((Deadline) task).getBy());
+        } else if (task instanceof Event) {
+            type = TYPE_EVENT;
+            first = DateTimes.toEpochMinute(((Event) task).getFrom());
+            second = DateTimes.toEpochMinute(((Event) task).getTo());
+        } else {
+            type = TYPE_TODO;
+        }
+        buffer.put(type)
+              .put((byte) (task.isDone() ? 1 : 0))
+              .putShort((short) 0)
+              .putInt(descOffset)
+              .putInt(descLength)
+              .putInt(0)
+              .putLong(first)
+              .putLong(second);
+    }
+}
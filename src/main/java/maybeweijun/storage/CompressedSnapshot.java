@@ -0,0 +1,270 @@
+package maybeweijun.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import maybeweijun.task.Task;
+
+/**
+ * Reads and writes the compressed snapshot format.
+ *
+ * <p>Tasks are encoded as text lines and grouped into blocks of up to {@link #TASKS_PER_BLOCK} tasks,
+ * and each block is deflated on its own. A block index at the end of the file records where every
+ * block starts and which tasks it holds, so blocks can be inflated in parallel on load, and a range
+ * of tasks can be read by inflating only the blocks that overlap it:
+ * <pre>
+ * header := magic:i32 version:i32 blockCount:i32 reserved:i32 sequence:i64 indexOffset:i64
+ * index  := { offset:i64 compressedLength:i32 length:i32 firstTask:i32 taskCount:i32 } * blockCount
+ * </pre>
+ */
+final class CompressedSnapshot {
+    static final int TASKS_PER_BLOCK = 1024;
+    private static final int MAGIC = 0x4D57445A;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int INDEX_ENTRY_BYTES = 24;
+
+    private CompressedSnapshot() {
+    }
+
+    /**
+     * Inflates every block, in parallel when there is more than one, and appends the tasks to {@code out}.
+     *
+     * @param path snapshot file
+     * @param out  list receiving the tasks in file order
+     * @return the journal sequence number stored in the header
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    static long read(Path path, List<Task> out) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = map(channel);
+            List<Block> blocks = readIndex(buffer);
+            List<Task> tasks = new ArrayList<>();
+            if (blocks.size() == 1) {
+                tasks.addAll(inflateTasks(buffer, blocks.get(0)));
+            } else {
+                List<Callable<List<Task>>> jobs = new ArrayList<>();
+                for (Block block : blocks) {
+                    jobs.add(() -> inflateTasks(buffer, block));
+                }
+                for (Future<List<Task>> future : ForkJoinPool.commonPool().invokeAll(jobs)) {
+                    tasks.addAll(future.get());
+                }
+            }
+            // Only touch the output once every block inflated, so a failure leaves it unchanged.
+            out.addAll(tasks);
+            return buffer.getLong(16);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+            throw new IOException("Failed to inflate block: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading", e);
+        }
+    }
+
+    /**
+     * Appends the tasks at positions {@code [from, to)} to {@code out}, inflating only the blocks that
+     * hold them. Positions past the end are ignored.
+     *
+     * @param path snapshot file
+     * @param from first position, inclusive
+     * @param to   last position, exclusive
+     * @param out  list receiving the tasks
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    static void readRange(Path path, int from, int to, List<Task> out) throws IOException {
+        assert from >= 0 && from <= to : "Invalid range";
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = map(channel);
+            for (Block block : readIndex(buffer)) {
+                int blockEnd = block.firstTask + block.taskCount;
+                if (blockEnd <= from || block.firstTask >= to) {
+                    continue;
+                }
+                List<Task> tasks;
+                try {
+                    tasks = inflateTasks(buffer, block);
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                int start = Math.max(from, block.firstTask) - block.firstTask;
+                int end = Math.min(Math.min(to, blockEnd) - block.firstTask, tasks.size());
+                if (start < end) {
+                    out.addAll(tasks.subList(start, end));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the tasks to a temporary file next to {@code path} and moves it into place.
+     *
+     * @param path     snapshot file
+     * @param tasks    tasks to write
+     * @param sequence journal sequence number covered by this snapshot
+     * @param isForced whether to fsync before returning
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path path, List<Task> tasks, long sequence, boolean isForced) throws IOException {
+        List<byte[]> compressed = new ArrayList<>();
+        List<Block> blocks = new ArrayList<>();
+        Deflater deflater = new Deflater();
+        try {
+            long offset = HEADER_BYTES;
+            for (int start = 0; start < tasks.size(); start += TASKS_PER_BLOCK) {
+                int count = Math.min(TASKS_PER_BLOCK, tasks.size() - start);
+                StringBuilder sb = new StringBuilder();
+                for (int i = start; i < start + count; i++) {
+                    sb.append(Storage.encode(tasks.get(i))).append('\n');
+                }
+                byte[] raw = sb.toString().getBytes(StandardCharsets.UTF_8);
+                byte[] packed = deflate(deflater, raw);
+                compressed.add(packed);
+                blocks.add(new Block(offset, packed.length, raw.length, start, count));
+                offset += packed.length;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(blocks.size()).putInt(0).putLong(sequence).putLong(offset);
+            header.flip();
+            ByteBuffer index = ByteBuffer.allocate(blocks.size() * INDEX_ENTRY_BYTES);
+            for (Block block : blocks) {
+                index.putLong(block.offset).putInt(block.compressedLength).putInt(block.length)
+                     .putInt(block.firstTask).putInt(block.taskCount);
+            }
+            index.flip();
+
+            AtomicFile.write(path, channel -> {
+                writeFully(channel, header);
+                for (byte[] packed : compressed) {
+                    writeFully(channel, ByteBuffer.wrap(packed));
+                }
+                writeFully(channel, index);
+            }, isForced);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+            throw new IOException("Invalid compressed snapshot size: " + size);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Invalid compressed snapshot header");
+        }
+        return buffer;
+    }
+
+    private static List<Block> readIndex(ByteBuffer buffer) throws IOException {
+        int blockCount = buffer.getInt(8);
+        long indexOffset = buffer.getLong(24);
+        if (blockCount < 0 || indexOffset < HEADER_BYTES
+                || indexOffset + (long) blockCount * INDEX_ENTRY_BYTES > buffer.limit()) {
+            throw new IOException("Invalid compressed snapshot index");
+        }
+        List<Block> blocks = new ArrayList<>();
+        for (int i = 0; i < blockCount; i++) {
+            int at = (int) indexOffset + i * INDEX_ENTRY_BYTES;
+            Block block = new Block(buffer.getLong(at), buffer.getInt(at + 8), buffer.getInt(at + 12),
+                    buffer.getInt(at + 16), buffer.getInt(at + 20));
+            if (block.offset < HEADER_BYTES || block.compressedLength < 0 || block.length < 0
+                    || block.offset + block.compressedLength > indexOffset) {
+                throw new IOException("Invalid compressed block " + i);
+            }
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    private static List<Task> inflateTasks(ByteBuffer buffer, Block block) {
+        byte[] raw = new byte[block.length];
+        Inflater inflater = new Inflater();
+        try {
+            ByteBuffer input = buffer.duplicate();
+            input.limit((int) block.offset + block.compressedLength).position((int) block.offset);
+            inflater.setInput(input);
+            int filled = 0;
+            while (filled < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, filled, raw.length - filled);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                filled += n;
+            }
+            if (filled != raw.length) {
+                throw new UncheckedIOException(new IOException("Truncated compressed block"));
+            }
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Corrupt compressed block", e));
+        } finally {
+            inflater.end();
+        }
+        CharBuffer chars = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(raw));
+        List<Task> tasks = new ArrayList<>(block.taskCount);
+        TaskLineScanner.scan(chars.array(), chars.arrayOffset(), chars.arrayOffset() + chars.limit(), tasks);
+        return tasks;
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] out = new byte[Math.max(64, raw.length / 2)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == out.length) {
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            length += deflater.deflate(out, length, out.length - length);
+        }
+        return Arrays.copyOf(out, length);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Index entry of one compressed block.
+     */
+    private static final class Block {
+        private final long offset;
+        private final int compressedLength;
+        private final int length;
+        private final int firstTask;
+        private final int taskCount;
+
+        private Block(long offset, int compressedLength, int length, int firstTask, int taskCount) {
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.length = length;
+            this.firstTask = firstTask;
+            this.taskCount = taskCount;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package maybeweijun.storage;
+
+/**
+ * Controls when {@link Storage} forces written data to the disk with {@code fsync}.
+ *
+ * <p>Snapshots are always written to a temporary file and renamed over the old one, so a crash never
+ * leaves a half-written snapshot behind; the policy only decides how much recent work may be lost when
+ * the operating system itself goes down before flushing its caches.
+ */
+public enum DurabilityPolicy {
+    /** Never force; rely on the operating system to flush eventually. Fastest. */
+    NONE,
+    /** Force every snapshot and journal append before returning. Slowest, loses nothing. */
+    EVERY_SAVE,
+    /**
+     * Force at most once per configured period. Writes made in between are forced by a background task
+     * once the period is over, bounding both the cost and the window of loss.
+     */
+    PERIODIC
+}
@@ -0,0 +1,155 @@
+package maybeweijun.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides, per the {@link DurabilityPolicy}, whether a write is forced to disk as it happens.
+ *
+ * <p>Under {@link DurabilityPolicy#PERIODIC} a write that is not forced right away is remembered by key,
+ * so repeated writes to the same file are forced once, and a background thread forces everything
+ * remembered once per period. Storage backends share this logic so that they honour a policy alike.
+ */
+final class ForceScheduler {
+    private static final long DEFAULT_PERIOD_MILLIS = 1000;
+
+    private DurabilityPolicy policy = DurabilityPolicy.NONE;
+    private long periodMillis = DEFAULT_PERIOD_MILLIS;
+    private long lastForceMillis = 0;
+    // Writes left unforced under PERIODIC, keyed by file, until the forcer syncs them
+    private final Map<Object, PendingForce> pendingForces = new LinkedHashMap<>();
+    private ScheduledExecutorService forcer;
+
+    /**
+     * Forces one file or log, written earlier without forcing, to the disk.
+     */
+    interface PendingForce {
+        void force() throws IOException;
+    }
+
+    /**
+     * Selects the policy applied to later writes.
+     *
+     * @param policy       the durability policy
+     * @param periodMillis minimum time between forces under {@link DurabilityPolicy#PERIODIC}; ignored otherwise
+     */
+    synchronized void setPolicy(DurabilityPolicy policy, long periodMillis) {
+        assert policy != null : "Durability policy must not be null";
+        assert periodMillis >= 0 : "Period must not be negative";
+        this.policy = policy;
+        this.periodMillis = periodMillis;
+    }
+
+    /**
+     * Returns the policy in effect.
+     */
+    synchronized DurabilityPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Decides whether the write about to happen should be forced to disk, and records the force.
+     * Under {@link DurabilityPolicy#PERIODIC}, a write that is not forced now is remembered and forced
+     * by a background task once the period is over.
+     *
+     * @param key     identifies the file or log being written, so repeated writes are forced once
+     * @param pending forces that file or log later
+     */
+    synchronized boolean shouldForce(Object key, PendingForce pending) {
+        switch (policy) {
+            case EVERY_SAVE:
+                return true;
+            case PERIODIC: {
+                long now = System.currentTimeMillis();
+                if (now - lastForceMillis < periodMillis) {
+                    pendingForces.put(key, pending);
+                    startForcer();
+                    return false;
+                }
+                lastForceMillis = now;
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the number of files or logs written but not yet forced under {@link DurabilityPolicy#PERIODIC}.
+     */
+    synchronized int pendingCount() {
+        return pendingForces.size();
+    }
+
+    /**
+     * Forces the pending write with the given key, if any, without waiting for the period to end.
+     */
+    void forceNow(Object key) {
+        PendingForce pending;
+        synchronized (this) {
+            pending = pendingForces.remove(key);
+        }
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.force();
+        } catch (IOException e) {
+            System.out.println("Failed to sync state: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forces every write left unforced so far.
+     */
+    void forcePending() {
+        List<PendingForce> due;
+        synchronized (this) {
+            if (pendingForces.isEmpty()) {
+                return;
+            }
+            due = new ArrayList<>(pendingForces.values());
+            pendingForces.clear();
+            lastForceMillis = System.currentTimeMillis();
+        }
+        for (PendingForce pending : due) {
+            try {
+                pending.force();
+            } catch (IOException e) {
+                System.out.println("Failed to sync state: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops the background thread and forces whatever it had not reached yet. A force already running
+     * is left to finish, since interrupting it would close the channel being forced.
+     */
+    void close() {
+        synchronized (this) {
+            if (forcer != null) {
+                forcer.shutdown();
+                forcer = null;
+            }
+        }
+        forcePending();
+    }
+
+    private synchronized void startForcer() {
+        if (forcer != null) {
+            return;
+        }
+        forcer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-fsync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        forcer.scheduleAtFixedRate(this::forcePending, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+}
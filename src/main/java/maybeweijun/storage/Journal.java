@@ -0,0 +1,239 @@
+package maybeweijun.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import maybeweijun.task.Task;
+import maybeweijun.task.TaskMutation;
+
+/**
+ * Append-only log of {@link TaskMutation}s that sits next to a snapshot file.
+ *
+ * <p>Every record is a single line of the form {@code <seq> | <op> | <argument>}, where
+ * {@code op} is {@code A} (add, argument is the encoded task), {@code M} (mark),
+ * {@code U} (unmark) or {@code X} (delete), and the argument of the last three is a zero-based index.
+ * Sequence numbers grow monotonically so that records already folded into a snapshot can be skipped.
+ *
+ * <p>During compaction the active log is rotated to a second file; records keep being appended to a
+ * fresh active log while the snapshot is rewritten, and the rotated file is deleted once the snapshot
+ * is safely in place.
+ */
+class Journal {
+    private static final String SEPARATOR = " | ";
+    private static final int SPLIT_LIMIT_THREE = 3;
+    private static final String OP_ADD = "A";
+    private static final String OP_MARK = "M";
+    private static final String OP_UNMARK = "U";
+    private static final String OP_DELETE = "X";
+    private static final int LINE_SEPARATOR_BYTES = System.lineSeparator().getBytes(StandardCharsets.UTF_8).length;
+
+    private final Path activePath;
+    private final Path rotatedPath;
+    private FileOutputStream stream;
+    private BufferedWriter writer;
+    private long lastSeq = 0;
+    private long activeBytes = -1;
+
+    /**
+     * Creates a journal whose files are placed next to the given snapshot file.
+     *
+     * @param snapshotPath path of the snapshot the journal belongs to
+     */
+    Journal(String snapshotPath) {
+        this.activePath = Paths.get(snapshotPath + ".journal");
+        this.rotatedPath = Paths.get(snapshotPath + ".journal.old");
+    }
+
+    /**
+     * Returns the sequence number of the most recently written or replayed record.
+     */
+    long getLastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Returns the approximate size in bytes of the active log.
+     */
+    long size() {
+        if (activeBytes < 0) {
+            try {
+                activeBytes = Files.size(activePath);
+            } catch (IOException e) {
+                activeBytes = 0;
+            }
+        }
+        return activeBytes;
+    }
+
+    /**
+     * Appends one record per mutation to the active log and flushes it.
+     *
+     * @param mutations the mutations to record, in application order
+     * @param isForced  whether to fsync the log before returning
+     * @throws IOException if the log cannot be written
+     */
+    synchronized void append(List<TaskMutation> mutations, boolean isForced) throws IOException {
+        if (writer == null) {
+            size();
+            stream = new FileOutputStream(activePath.toFile(), true);
+            writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        }
+        for (TaskMutation mutation : mutations) {
+            String record = (++lastSeq) + SEPARATOR + encode(mutation);
+            writer.write(record);
+            writer.write(System.lineSeparator());
+            activeBytes += record.getBytes(StandardCharsets.UTF_8).length + LINE_SEPARATOR_BYTES;
+        }
+        writer.flush();
+        if (isForced) {
+            force();
+        }
+    }
+
+    /**
+     * Forces records written so far to the disk.
+     *
+     * @throws IOException if the sync fails
+     */
+    synchronized void force() throws IOException {
+        if (stream != null) {
+            stream.getChannel().force(false);
+        }
+    }
+
+    /**
+     * Moves the active log aside so that a snapshot can be written while new records go to a fresh log.
+     * If an earlier rotated log is still present (e.g. a failed compaction), the active records are
+     * appended to it instead so that no record is lost.
+     *
+     * @return the sequence number of the last record covered by the rotated log
+     * @throws IOException if the files cannot be moved
+     */
+    synchronized long rotate() throws IOException {
+        close();
+        if (Files.exists(activePath)) {
+            if (Files.exists(rotatedPath)) {
+                Files.write(rotatedPath, Files.readAllBytes(activePath), StandardOpenOption.APPEND);
+                Files.delete(activePath);
+            } else {
+                Files.move(activePath, rotatedPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        activeBytes = 0;
+        return lastSeq;
+    }
+
+    /**
+     * Deletes the rotated log once its records are covered by a snapshot.
+     *
+     * @throws IOException if the file exists but cannot be deleted
+     */
+    void deleteRotated() throws IOException {
+        Files.deleteIfExists(rotatedPath);
+    }
+
+    /**
+     * Replays all records newer than the given sequence number onto the list, rotated log first.
+     * Malformed records and records whose index no longer fits the list are skipped.
+     *
+     * @param tasks       the tasks loaded from the snapshot, updated in place
+     * @param snapshotSeq sequence number already reflected in the snapshot
+     */
+    void replay(List<Task> tasks, long snapshotSeq) {
+        lastSeq = Math.max(lastSeq, snapshotSeq);
+        replayFile(rotatedPath, tasks, snapshotSeq);
+        replayFile(activePath, tasks, snapshotSeq);
+    }
+
+    /**
+     * Closes the active log writer, if open.
+     */
+    synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.out.println("Failed to close journal: " + e.getMessage());
+        }
+        writer = null;
+        stream = null;
+    }
+
+    private void replayFile(Path path, List<Task> tasks, long snapshotSeq) {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                replayRecord(line, tasks, snapshotSeq);
+            }
+        } catch (NoSuchFileException e) {
+            // nothing to replay
+        } catch (IOException e) {
+            System.out.println("Failed to replay journal: " + e.getMessage());
+        }
+    }
+
+    private void replayRecord(String line, List<Task> tasks, long snapshotSeq) {
+        String[] parts = line.split(" \\| ", SPLIT_LIMIT_THREE);
+        if (parts.length < SPLIT_LIMIT_THREE) {
+            return;
+        }
+        TaskMutation mutation;
+        long seq;
+        try {
+            seq = Long.parseLong(parts[0].trim());
+            mutation = decode(parts[1].trim(), parts[2], tasks.size());
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (mutation == null || seq <= snapshotSeq) {
+            return;
+        }
+        mutation.applyTo(tasks);
+        lastSeq = Math.max(lastSeq, seq);
+    }
+
+    private static String encode(TaskMutation mutation) {
+        switch (mutation.getKind()) {
+            case ADD:
+                return OP_ADD + SEPARATOR + Storage.encode(mutation.getTask());
+            case MARK:
+                return OP_MARK + SEPARATOR + mutation.getIndex();
+            case UNMARK:
+                return OP_UNMARK + SEPARATOR + mutation.getIndex();
+            case DELETE:
+                return OP_DELETE + SEPARATOR + mutation.getIndex();
+            default:
+                throw new IllegalArgumentException("Unknown mutation kind: " + mutation.getKind());
+        }
+    }
+
+    private static TaskMutation decode(String op, String argument, int size) {
+        switch (op) {
+            case OP_ADD: {
+                Task task = Storage.decode(argument);
+                return task == null ? null : TaskMutation.added(size, task);
+            }
+            case OP_MARK:
+                return TaskMutation.marked(Integer.parseInt(argument.trim()));
+            case OP_UNMARK:
+                return TaskMutation.unmarked(Integer.parseInt(argument.trim()));
+            case OP_DELETE:
+                return TaskMutation.deleted(Integer.parseInt(argument.trim()));
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,671 @@
+package maybeweijun.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import maybeweijun.task.Task;
+import maybeweijun.task.TaskMutation;
+
+/**
+ * Log-structured merge store for tasks, kept in its own directory.
+ *
+ * <p>Every task is stored under a key. Keys are handed out in increasing order as tasks are appended,
+ * so the list order is simply key order; an order-statistic index over the live keys turns a position
+ * into a key and back in logarithmic time. Changes go to a write-ahead log ({@code wal.log}) and an in-memory
+ * memtable; once the memtable holds {@code memtableLimit} entries it is written out as an immutable
+ * segment file sorted by key, and the log is discarded. When {@link #MERGE_FAN_IN} segments have piled
+ * up, a background thread merges them into one, dropping overwritten values and deletion markers.
+ * The {@code MANIFEST} file lists the live segments from oldest to newest and is replaced atomically.
+ *
+ * <p>Log appends are forced to disk according to the {@link DurabilityPolicy}. Segments and the manifest
+ * take over from the log when it is discarded, so they are forced under any policy other than
+ * {@link DurabilityPolicy#NONE}.
+ *
+ * <p>Log and segment records share one line format: {@code <key> P <encoded task>} for a put and
+ * {@code <key> D} for a delete, where the task is encoded as in the text snapshot.
+ */
+public class LsmStorageBackend implements StorageBackend {
+    static final int MERGE_FAN_IN = 4;
+    private static final int DEFAULT_MEMTABLE_LIMIT = 4096;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final String MANIFEST = "MANIFEST";
+    private static final String WAL = "wal.log";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final char OP_PUT = 'P';
+    private static final char OP_DELETE = 'D';
+
+    private final Path directory;
+    private final int memtableLimit;
+    private final TreeMap<Long, String> memtable = new TreeMap<>();
+    private final LiveKeys keys = new LiveKeys();
+    private final ForceScheduler forces = new ForceScheduler();
+    private List<String> segments = new ArrayList<>();
+    private long nextKey = 0;
+    private long nextSegmentId = 0;
+    private FileOutputStream walStream;
+    private BufferedWriter walWriter;
+    private ExecutorService merger;
+    private Future<?> merge;
+
+    /**
+     * Creates a store in the given directory, which is created on first write.
+     *
+     * @param directory directory holding the manifest, segments and log
+     */
+    public LsmStorageBackend(String directory) {
+        this(directory, DEFAULT_MEMTABLE_LIMIT);
+    }
+
+    /**
+     * Creates a store that flushes its memtable after the given number of entries.
+     *
+     * @param directory     directory holding the manifest, segments and log
+     * @param memtableLimit memtable size that triggers a flush to a new segment
+     */
+    public LsmStorageBackend(String directory, int memtableLimit) {
+        assert memtableLimit > 0 : "Memtable limit must be positive";
+        this.directory = Paths.get(directory);
+        this.memtableLimit = memtableLimit;
+    }
+
+    /**
+     * Selects when log appends are forced to disk.
+     *
+     * @param policy       the durability policy
+     * @param periodMillis minimum time between forces under {@link DurabilityPolicy#PERIODIC}; ignored otherwise.
+     *                     Appends that are not forced right away are forced by a background task within this time
+     */
+    public void setDurabilityPolicy(DurabilityPolicy policy, long periodMillis) {
+        forces.setPolicy(policy, periodMillis);
+    }
+
+    /**
+     * Returns the number of log appends not yet forced under {@link DurabilityPolicy#PERIODIC}.
+     */
+    int pendingForceCount() {
+        return forces.pendingCount();
+    }
+
+    /**
+     * Returns the number of segment files currently listed in the manifest.
+     */
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Lenient load: reads the segments and the log, newest value per key winning, and swallows IO issues.
+     */
+    @Override
+    public synchronized List<Task> load() {
+        TreeMap<Long, String> merged = new TreeMap<>();
+        memtable.clear();
+        try {
+            segments = readManifest();
+            for (String segment : segments) {
+                readRecords(directory.resolve(segment), merged);
+            }
+            readRecords(directory.resolve(WAL), memtable);
+            merged.putAll(memtable);
+        } catch (IOException e) {
+            System.out.println("Failed to load state: " + e.getMessage());
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        keys.clear();
+        for (Map.Entry<Long, String> entry : merged.entrySet()) {
+            nextKey = Math.max(nextKey, entry.getKey() + 1);
+            Task task = entry.getValue() == null ? null : Storage.decode(entry.getValue());
+            if (task != null) {
+                keys.add(entry.getKey());
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Lenient save: replaces every segment and the log with a single segment holding the given tasks.
+     * A running merge is waited for first, outside the lock, since it needs the lock to swap in its output.
+     */
+    @Override
+    public void save(List<Task> tasks) {
+        while (true) {
+            Future<?> running;
+            synchronized (this) {
+                running = merge;
+                if (running == null || running.isDone()) {
+                    awaitMerge(running);
+                    replaceAll(tasks);
+                    return;
+                }
+            }
+            if (!awaitMerge(running)) {
+                System.out.println("Failed to save state: interrupted while waiting for a merge");
+                return;
+            }
+        }
+    }
+
+    private void replaceAll(List<Task> tasks) {
+        closeWal();
+        TreeMap<Long, String> records = new TreeMap<>();
+        keys.clear();
+        nextKey = 0;
+        for (Task task : tasks) {
+            keys.add(nextKey);
+            records.put(nextKey++, Storage.encode(task));
+        }
+        try {
+            List<String> old = segments;
+            String segment = writeSegment(records);
+            segments = new ArrayList<>(List.of(segment));
+            writeManifest();
+            memtable.clear();
+            Files.deleteIfExists(directory.resolve(WAL));
+            deleteSegments(old);
+        } catch (IOException e) {
+            System.out.println("Failed to save state: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Logs the puts and deletes implied by the mutations, flushing the memtable to a segment when full.
+     * {@link #load()} must have been called first so that positions can be mapped to keys.
+     */
+    @Override
+    public synchronized void apply(List<TaskMutation> mutations, List<Task> current) {
+        assert mutations != null : "Mutations must not be null";
+        if (mutations.isEmpty()) {
+            return;
+        }
+        TreeSet<Long> puts = new TreeSet<>();
+        TreeSet<Long> deletes = new TreeSet<>();
+        for (TaskMutation mutation : mutations) {
+            int index = mutation.getIndex();
+            if (mutation.getKind() == TaskMutation.Kind.ADD) {
+                keys.add(nextKey);
+                puts.add(nextKey++);
+            } else if (index >= 0 && index < keys.size()) {
+                long key = mutation.getKind() == TaskMutation.Kind.DELETE ? keys.remove(index) : keys.get(index);
+                if (mutation.getKind() == TaskMutation.Kind.DELETE) {
+                    puts.remove(key);
+                    deletes.add(key);
+                } else {
+                    puts.add(key);
+                }
+            }
+        }
+        assert keys.size() == current.size() : "Keys out of step with the task list";
+
+        TreeMap<Long, String> records = new TreeMap<>();
+        for (long key : puts) {
+            records.put(key, Storage.encode(current.get(keys.indexOf(key))));
+        }
+        for (long key : deletes) {
+            records.put(key, null);
+        }
+        try {
+            appendToWal(records, forces.shouldForce(WAL, this::forceWal));
+        } catch (IOException e) {
+            System.out.println("Failed to save state: " + e.getMessage());
+            return;
+        }
+        memtable.putAll(records);
+        if (memtable.size() >= memtableLimit) {
+            flushMemtable();
+        }
+    }
+
+    /**
+     * Waits for a running merge, forces appends still pending under {@link DurabilityPolicy#PERIODIC},
+     * and closes the log.
+     */
+    @Override
+    public void close() {
+        forces.close();
+        ExecutorService executor;
+        synchronized (this) {
+            executor = merger;
+            merger = null;
+            closeWal();
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void flushMemtable() {
+        try {
+            closeWal();
+            String segment = writeSegment(memtable);
+            List<String> updated = new ArrayList<>(segments);
+            updated.add(segment);
+            segments = updated;
+            writeManifest();
+            // Replaying the log once more after a crash here is harmless: every record is keyed.
+            Files.deleteIfExists(directory.resolve(WAL));
+            memtable.clear();
+        } catch (IOException e) {
+            System.out.println("Failed to flush memtable: " + e.getMessage());
+            return;
+        }
+        if (segments.size() >= MERGE_FAN_IN && (merge == null || merge.isDone())) {
+            List<String> inputs = new ArrayList<>(segments);
+            merge = merger().submit(() -> mergeSegments(inputs));
+        }
+    }
+
+    /**
+     * Merges the given segments, which are the oldest ones in the manifest, into a single segment.
+     * Deletion markers are dropped since no older segment remains for them to shadow.
+     */
+    private void mergeSegments(List<String> inputs) {
+        String output;
+        try {
+            output = writeSegmentFile(nextSegmentName(), writer -> mergeInto(inputs, writer));
+        } catch (IOException e) {
+            System.out.println("Failed to merge segments: " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            List<String> updated = new ArrayList<>();
+            updated.add(output);
+            updated.addAll(segments.subList(inputs.size(), segments.size()));
+            segments = updated;
+            try {
+                writeManifest();
+                deleteSegments(inputs);
+            } catch (IOException e) {
+                System.out.println("Failed to merge segments: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Streams a k-way merge of sorted segments, keeping the newest record for each key.
+     */
+    private void mergeInto(List<String> inputs, Writer writer) throws IOException {
+        PriorityQueue<SegmentCursor> heap = new PriorityQueue<>();
+        try {
+            for (int i = 0; i < inputs.size(); i++) {
+                SegmentCursor cursor = new SegmentCursor(directory.resolve(inputs.get(i)), i);
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                } else {
+                    cursor.close();
+                }
+            }
+            while (!heap.isEmpty()) {
+                long key = heap.peek().key;
+                String newest = null;
+                int newestAge = -1;
+                while (!heap.isEmpty() && heap.peek().key == key) {
+                    SegmentCursor cursor = heap.poll();
+                    if (cursor.age > newestAge) {
+                        newestAge = cursor.age;
+                        newest = cursor.value;
+                    }
+                    if (cursor.advance()) {
+                        heap.add(cursor);
+                    } else {
+                        cursor.close();
+                    }
+                }
+                if (newest != null) {
+                    writeRecord(writer, key, newest);
+                }
+            }
+        } finally {
+            for (SegmentCursor cursor : heap) {
+                cursor.close();
+            }
+        }
+    }
+
+    private String writeSegment(Map<Long, String> records) throws IOException {
+        return writeSegmentFile(nextSegmentName(), writer -> {
+            for (Map.Entry<Long, String> entry : records.entrySet()) {
+                writeRecord(writer, entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    private String writeSegmentFile(String name, RecordSink sink) throws IOException {
+        Files.createDirectories(directory);
+        AtomicFile.write(directory.resolve(name), channel -> {
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            sink.writeTo(writer);
+            writer.flush();
+        }, isDurable());
+        return name;
+    }
+
+    private synchronized String nextSegmentName() {
+        return SEGMENT_PREFIX + (nextSegmentId++) + SEGMENT_SUFFIX;
+    }
+
+    private void appendToWal(Map<Long, String> records, boolean isForced) throws IOException {
+        if (walWriter == null) {
+            Files.createDirectories(directory);
+            walStream = new FileOutputStream(directory.resolve(WAL).toFile(), true);
+            walWriter = new BufferedWriter(new OutputStreamWriter(walStream, StandardCharsets.UTF_8));
+        }
+        for (Map.Entry<Long, String> entry : records.entrySet()) {
+            writeRecord(walWriter, entry.getKey(), entry.getValue());
+        }
+        walWriter.flush();
+        if (isForced) {
+            walStream.getChannel().force(false);
+        }
+    }
+
+    /**
+     * Forces the open log, if any. A log closed in the meantime was replaced by a forced segment.
+     */
+    private synchronized void forceWal() throws IOException {
+        if (walStream != null) {
+            walStream.getChannel().force(false);
+        }
+    }
+
+    private boolean isDurable() {
+        return forces.getPolicy() != DurabilityPolicy.NONE;
+    }
+
+    private void closeWal() {
+        if (walWriter == null) {
+            return;
+        }
+        try {
+            walWriter.close();
+        } catch (IOException e) {
+            System.out.println("Failed to close log: " + e.getMessage());
+        }
+        walWriter = null;
+        walStream = null;
+    }
+
+    private List<String> readManifest() throws IOException {
+        List<String> names = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(directory.resolve(MANIFEST), StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                names.add(line.trim());
+                nextSegmentId = Math.max(nextSegmentId, segmentId(line.trim()) + 1);
+            }
+        } catch (NoSuchFileException e) {
+            // a fresh store has no segments yet
+        }
+        return names;
+    }
+
+    private void writeManifest() throws IOException {
+        Files.createDirectories(directory);
+        String content = segments.isEmpty() ? "" : String.join("\n", segments) + "\n";
+        ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        AtomicFile.write(directory.resolve(MANIFEST), channel -> {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }, isDurable());
+    }
+
+    private void deleteSegments(List<String> names) throws IOException {
+        for (String name : names) {
+            Files.deleteIfExists(directory.resolve(name));
+        }
+    }
+
+    private static long segmentId(String name) {
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads records in file order into {@code out}; a delete is stored as a null value.
+     */
+    private static void readRecords(Path path, Map<Long, String> out) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space < 0 || space + 1 >= line.length()) {
+                    continue;
+                }
+                long key;
+                try {
+                    key = Long.parseLong(line.substring(0, space));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                out.put(key, valueOf(line, space));
+            }
+        } catch (NoSuchFileException e) {
+            // nothing to read
+        }
+    }
+
+    private static String valueOf(String line, int space) {
+        return line.charAt(space + 1) == OP_PUT && line.length() > space + 2 ? line.substring(space + 3) : null;
+    }
+
+    private static void writeRecord(Writer writer, long key, String value) throws IOException {
+        writer.write(Long.toString(key));
+        writer.write(' ');
+        if (value == null) {
+            writer.write(OP_DELETE);
+        } else {
+            writer.write(OP_PUT);
+            writer.write(' ');
+            writer.write(value);
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Waits for the given merge, if any, reporting its failure.
+     *
+     * @return false if the wait was interrupted
+     */
+    private static boolean awaitMerge(Future<?> running) {
+        if (running == null) {
+            return true;
+        }
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            System.out.println("Failed to merge segments: " + e.getMessage());
+        }
+        return true;
+    }
+
+    private ExecutorService merger() {
+        if (merger == null) {
+            merger = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "storage-merger");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return merger;
+    }
+
+    /**
+     * Writes the body of a segment file.
+     */
+    private interface RecordSink {
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    /**
+     * Live keys in increasing order. A Fenwick tree of presence counts, indexed by key, finds the key at a
+     * position and the position of a key in logarithmic time, and adding or removing a key costs the same.
+     * The tree doubles as keys grow, so its size follows the largest key handed out since the last
+     * {@link #save(List)} or {@link #load()} rather than the number of live keys.
+     */
+    private static final class LiveKeys {
+        private static final int INITIAL_CAPACITY = 16;
+        // tree[slot] counts live keys in (slot - lowbit(slot), slot]; key k lives in slot k + 1
+        private int[] tree = new int[INITIAL_CAPACITY + 1];
+        private int size = 0;
+
+        private void clear() {
+            tree = new int[INITIAL_CAPACITY + 1];
+            size = 0;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        /**
+         * Adds a key that is not live yet.
+         */
+        private void add(long key) {
+            int slot = Math.toIntExact(key) + 1;
+            while (slot >= tree.length) {
+                grow();
+            }
+            update(slot, 1);
+            size++;
+        }
+
+        /**
+         * Removes and returns the key at the given position.
+         */
+        private long remove(int index) {
+            long key = get(index);
+            update((int) key + 1, -1);
+            size--;
+            return key;
+        }
+
+        /**
+         * Returns the key at the given position.
+         */
+        private long get(int index) {
+            assert index >= 0 && index < size : "Index out of bounds: " + index;
+            int slot = 0;
+            int remaining = index + 1;
+            for (int step = tree.length - 1; step > 0; step >>= 1) {
+                int next = slot + step;
+                if (next < tree.length && tree[next] < remaining) {
+                    slot = next;
+                    remaining -= tree[next];
+                }
+            }
+            return slot;
+        }
+
+        /**
+         * Returns the position of a live key, which is the number of live keys below it.
+         */
+        private int indexOf(long key) {
+            int index = 0;
+            for (int slot = Math.toIntExact(key); slot > 0; slot -= slot & -slot) {
+                index += tree[slot];
+            }
+            return index;
+        }
+
+        private void update(int slot, int delta) {
+            for (; slot < tree.length; slot += slot & -slot) {
+                tree[slot] += delta;
+            }
+        }
+
+        /**
+         * Doubles the capacity. Only the new last slot covers old keys, and it covers all of them.
+         */
+        private void grow() {
+            int capacity = tree.length - 1;
+            int[] grown = new int[capacity * 2 + 1];
+            System.arraycopy(tree, 0, grown, 0, tree.length);
+            grown[capacity * 2] = tree[capacity];
+            tree = grown;
+        }
+    }
+
+    /**
+     * Reads one segment record by record during a merge. Older segments have a smaller age.
+     */
+    private static final class SegmentCursor implements Comparable<SegmentCursor> {
+        private final BufferedReader reader;
+        private final int age;
+        private long key;
+        private String value;
+
+        private SegmentCursor(Path path, int age) throws IOException {
+            this.reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+            this.age = age;
+        }
+
+        private boolean advance() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space < 0 || space + 1 >= line.length()) {
+                    continue;
+                }
+                try {
+                    key = Long.parseLong(line.substring(0, space));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                value = valueOf(line, space);
+                return true;
+            }
+            return false;
+        }
+
+        private void close() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                System.out.println("Failed to close segment: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public int compareTo(SegmentCursor other) {
+            return Long.compare(key, other.key);
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package maybeweijun.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import maybeweijun.task.Task;
+import maybeweijun.task.TaskMutation;
+
+/**
+ * Stores tasks in fixed-capacity pages so that a change rewrites only the pages it touches.
+ *
+ * <p>Two files are involved. The page directory ({@code <base>.pages}) holds a 32-byte header
+ * ({@code magic, version, generation, pageCount}) followed by one 32-byte entry per logical page:
+ * <pre>
+ * entry := base:i64 capacity:i32 length:i32 count:i32 crc:i32 slot:i32 reserved:i32
+ * </pre>
+ * The data file ({@code <base>.pages.<generation>}) holds, for every page, two slots of
+ * {@code capacity} bytes each. A page's tasks are encoded as text lines and written into the slot
+ * that is <em>not</em> currently active; only then is the directory entry updated to point at it, so a
+ * crash during a page write leaves the previous image intact. A page that outgrows its slots is moved
+ * to fresh space at the end of the data file.
+ *
+ * <p>Logical pages keep their order; deleting a task shrinks its page and adding a task fills the
+ * last page. Marking one task therefore costs one page write plus one directory entry write.
+ * A full {@link #rewrite} packs the pages again into a new generation of the data file.
+ *
+ * <p>Positions are mapped to pages through the counts in the directory, so those counts must match the
+ * caller's list. After {@link #readAll()} has skipped a page the caller must {@link #rewrite} the file;
+ * until then {@link #apply} refuses to run.
+ */
+final class PagedTaskFile {
+    static final int TASKS_PER_PAGE = 64;
+    private static final int MAGIC = 0x4D575047;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int ENTRY_BYTES = 32;
+    private static final int BLOCK_BYTES = 4096;
+    private static final int SLOT_COUNT = 2;
+
+    private final Path directoryPath;
+    private final String dataPrefix;
+    private long generation;
+    private final List<Entry> entries = new ArrayList<>();
+    private boolean isDirectoryLoaded = false;
+    private long pageWrites = 0;
+    private int unreadablePages = 0;
+
+    /**
+     * Creates a paged file rooted at the given base path, e.g. {@code data/state}.
+     *
+     * @param basePath path without extension shared by the directory and data files
+     */
+    PagedTaskFile(String basePath) {
+        this.directoryPath = Paths.get(basePath + ".pages");
+        this.dataPrefix = basePath + ".pages.";
+    }
+
+    boolean exists() {
+        return Files.exists(directoryPath);
+    }
+
+    /**
+     * Returns the number of page images written since this object was created.
+     */
+    long getPageWrites() {
+        return pageWrites;
+    }
+
+    /**
+     * Returns the number of pages the last {@link #readAll()} could not read in full.
+     */
+    int getUnreadablePages() {
+        return unreadablePages;
+    }
+
+    /**
+     * Reads every page in order. Pages whose checksum does not match, or that decode to fewer tasks than
+     * the directory records, are skipped or cut short and counted in {@link #getUnreadablePages()}.
+     *
+     * @return the stored tasks
+     * @throws IOException if the directory or data file cannot be read
+     */
+    List<Task> readAll() throws IOException {
+        loadDirectory();
+        unreadablePages = 0;
+        List<Task> tasks = new ArrayList<>();
+        try (FileChannel data = FileChannel.open(dataPath(), StandardOpenOption.READ)) {
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                if (entry.count == 0) {
+                    continue;
+                }
+                ByteBuffer bytes = ByteBuffer.allocate(entry.length);
+                readFully(data, bytes, entry.slotOffset());
+                if (checksum(bytes.array(), entry.length) != entry.crc) {
+                    unreadablePages++;
+                    continue;
+                }
+                int before = tasks.size();
+                CharBuffer chars = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(bytes.array()));
+                TaskLineScanner.scan(chars.array(), chars.arrayOffset(), chars.arrayOffset() + chars.limit(), tasks);
+                if (tasks.size() - before != entry.count) {
+                    unreadablePages++;
+                }
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Replaces the whole file with densely packed pages holding the given tasks.
+     *
+     * @param tasks    tasks to store
+     * @param isForced whether to fsync before the new directory is published
+     * @throws IOException if the files cannot be written
+     */
+    void rewrite(List<Task> tasks, boolean isForced) throws IOException {
+        long oldGeneration = readGenerationOrNone();
+        long newGeneration = oldGeneration + 1;
+        List<Entry> packed = new ArrayList<>();
+        Path newData = Paths.get(dataPrefix + newGeneration);
+        try (FileChannel data = FileChannel.open(newData, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long end = 0;
+            for (int start = 0; start < tasks.size(); start += TASKS_PER_PAGE) {
+                int count = Math.min(TASKS_PER_PAGE, tasks.size() - start);
+                byte[] bytes = encodePage(tasks, start, count);
+                Entry entry = new Entry(end, capacityFor(bytes.length));
+                writePage(data, entry, bytes, count, 0);
+                packed.add(entry);
+                end += (long) entry.capacity * SLOT_COUNT;
+            }
+            if (isForced) {
+                data.force(true);
+            }
+        }
+        entries.clear();
+        entries.addAll(packed);
+        generation = newGeneration;
+        isDirectoryLoaded = true;
+        unreadablePages = 0;
+        AtomicFile.write(directoryPath, channel -> writeFully(channel, directoryImage(), 0), isForced);
+        if (oldGeneration >= 0) {
+            Files.deleteIfExists(Paths.get(dataPrefix + oldGeneration));
+        }
+    }
+
+    /**
+     * Applies mutations incrementally, rewriting only the pages they touch.
+     *
+     * @param mutations mutations in application order
+     * @param current   the task list after all mutations have been applied
+     * @param isForced  whether to fsync page data before the directory entries that publish it
+     * @throws IOException if the files cannot be written, or if the directory no longer matches
+     *                     {@code current}, in which case nothing is written and the file must be rewritten
+     */
+    void apply(List<TaskMutation> mutations, List<Task> current, boolean isForced) throws IOException {
+        loadDirectory();
+        if (unreadablePages > 0) {
+            throw new IOException(unreadablePages + " unreadable pages must be rewritten first");
+        }
+        int oldPageCount = entries.size();
+        TreeSet<Integer> dirty = new TreeSet<>();
+        for (TaskMutation mutation : mutations) {
+            if (mutation.getKind() == TaskMutation.Kind.ADD) {
+                if (entries.isEmpty() || entries.get(entries.size() - 1).count >= TASKS_PER_PAGE) {
+                    entries.add(new Entry(-1, 0));
+                }
+                int last = entries.size() - 1;
+                entries.get(last).count++;
+                dirty.add(last);
+                continue;
+            }
+            int page = pageOf(mutation.getIndex());
+            if (page < 0) {
+                continue;
+            }
+            if (mutation.getKind() == TaskMutation.Kind.DELETE) {
+                entries.get(page).count--;
+            }
+            dirty.add(page);
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+        if (storedCount() != current.size()) {
+            // Nothing was written yet, so the next load of the directory discards the counts changed above.
+            isDirectoryLoaded = false;
+            throw new IOException("Page directory holds " + storedCount() + " tasks but the list has "
+                    + current.size());
+        }
+
+        List<Integer> rewrittenEntries = new ArrayList<>();
+        try (FileChannel data = FileChannel.open(dataPath(), StandardOpenOption.WRITE)) {
+            long end = allocatedEnd();
+            int pageStart = 0;
+            int page = 0;
+            for (int dirtyPage : dirty) {
+                while (page < dirtyPage) {
+                    pageStart += entries.get(page++).count;
+                }
+                Entry entry = entries.get(dirtyPage);
+                byte[] bytes = encodePage(current, pageStart, entry.count);
+                if (entry.base < 0 || bytes.length > entry.capacity) {
+                    // New or outgrown pages take fresh space at the end; old slots are reclaimed by the next rewrite.
+                    entry.base = end;
+                    entry.capacity = capacityFor(bytes.length);
+                    end += (long) entry.capacity * SLOT_COUNT;
+                    writePage(data, entry, bytes, entry.count, 0);
+                } else {
+                    writePage(data, entry, bytes, entry.count, 1 - entry.slot);
+                }
+                rewrittenEntries.add(dirtyPage);
+            }
+            if (isForced) {
+                data.force(true);
+            }
+        }
+
+        try (FileChannel directory = FileChannel.open(directoryPath, StandardOpenOption.WRITE)) {
+            for (int i : rewrittenEntries) {
+                writeFully(directory, entryImage(entries.get(i)), HEADER_BYTES + (long) i * ENTRY_BYTES);
+            }
+            if (entries.size() != oldPageCount) {
+                writeFully(directory, headerImage(), 0);
+            }
+            if (isForced) {
+                directory.force(true);
+            }
+        }
+    }
+
+    /**
+     * Forces the current data file and the page directory to the disk, for writes made without
+     * {@code isForced}.
+     *
+     * @throws IOException if the sync fails
+     */
+    void force() throws IOException {
+        if (isDirectoryLoaded) {
+            AtomicFile.force(dataPath());
+        }
+        AtomicFile.force(directoryPath);
+    }
+
+    private int storedCount() {
+        int count = 0;
+        for (Entry entry : entries) {
+            count += entry.count;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the logical page holding the task at {@code index}, or -1 if out of range.
+     */
+    private int pageOf(int index) {
+        if (index < 0) {
+            return -1;
+        }
+        int remaining = index;
+        for (int i = 0; i < entries.size(); i++) {
+            int count = entries.get(i).count;
+            if (remaining < count) {
+                return i;
+            }
+            remaining -= count;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the offset just past the last slot reserved by any page. The file itself may be shorter,
+     * since a slot is only as long as the bytes written into it.
+     */
+    private long allocatedEnd() {
+        long end = 0;
+        for (Entry entry : entries) {
+            if (entry.base >= 0) {
+                end = Math.max(end, entry.base + (long) entry.capacity * SLOT_COUNT);
+            }
+        }
+        return end;
+    }
+
+    private void writePage(FileChannel data, Entry entry, byte[] bytes, int count, int slot) throws IOException {
+        entry.slot = slot;
+        entry.length = bytes.length;
+        entry.count = count;
+        entry.crc = checksum(bytes, bytes.length);
+        writeFully(data, ByteBuffer.wrap(bytes), entry.slotOffset());
+        pageWrites++;
+    }
+
+    private static byte[] encodePage(List<Task> tasks, int start, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = start; i < start + count; i++) {
+            sb.append(Storage.encode(tasks.get(i))).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int capacityFor(int length) {
+        int blocks = Math.max(1, (length + BLOCK_BYTES - 1) / BLOCK_BYTES);
+        return blocks * BLOCK_BYTES;
+    }
+
+    private static int checksum(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private Path dataPath() {
+        return Paths.get(dataPrefix + generation);
+    }
+
+    private long readGenerationOrNone() {
+        if (!exists()) {
+            return -1;
+        }
+        try {
+            loadDirectory();
+            return generation;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private void loadDirectory() throws IOException {
+        if (isDirectoryLoaded) {
+            return;
+        }
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(directoryPath));
+        } catch (NoSuchFileException e) {
+            throw new IOException("Page directory not found: " + directoryPath, e);
+        }
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Invalid page directory header");
+        }
+        generation = buffer.getLong(8);
+        int pageCount = buffer.getInt(16);
+        if (pageCount < 0 || HEADER_BYTES + (long) pageCount * ENTRY_BYTES > buffer.limit()) {
+            throw new IOException("Invalid page count: " + pageCount);
+        }
+        entries.clear();
+        for (int i = 0; i < pageCount; i++) {
+            int offset = HEADER_BYTES + i * ENTRY_BYTES;
+            Entry entry = new Entry(buffer.getLong(offset), buffer.getInt(offset + 8));
+            entry.length = buffer.getInt(offset + 12);
+            entry.count = buffer.getInt(offset + 16);
+            entry.crc = buffer.getInt(offset + 20);
+            entry.slot = buffer.getInt(offset + 24);
+            entries.add(entry);
+        }
+        isDirectoryLoaded = true;
+    }
+
+    private ByteBuffer directoryImage() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + entries.size() * ENTRY_BYTES);
+        buffer.put(headerImage());
+        for (Entry entry : entries) {
+            buffer.put(entryImage(entry));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private ByteBuffer headerImage() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(generation).putInt(entries.size());
+        buffer.rewind();
+        return buffer;
+    }
+
+    private static ByteBuffer entryImage(Entry entry) {
+        ByteBuffer buffer = ByteBuffer.allocate(ENTRY_BYTES);
+        buffer.putLong(entry.base).putInt(entry.capacity).putInt(entry.length)
+              .putInt(entry.count).putInt(entry.crc).putInt(entry.slot).putInt(0);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of page file");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Directory entry describing where a logical page lives and how much of it is in use.
+     */
+    private static final class Entry {
+        private long base;
+        private int capacity;
+        private int length;
+        private int count;
+        private int crc;
+        private int slot;
+
+        private Entry(long base, int capacity) {
+            this.base = base;
+            this.capacity = capacity;
+        }
+
+        private long slotOffset() {
+            return base + (long) slot * capacity;
+        }
+    }
+}
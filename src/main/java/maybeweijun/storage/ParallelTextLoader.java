@@ -0,0 +1,141 @@
+package maybeweijun.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import maybeweijun.task.Task;
+
+/**
+ * Loads large text snapshots by scanning newline-aligned chunks of the file in parallel.
+ *
+ * <p>The file is cut into chunks whose boundaries are moved forward to the next {@code '\n'}, so that
+ * every chunk holds whole lines and can be decoded on its own. Each chunk is memory-mapped, decoded as
+ * UTF-8 and scanned with {@link TaskLineScanner} on the common fork-join pool; the per-chunk results are
+ * then concatenated in file order. Malformed lines are skipped exactly as in the sequential loader.
+ */
+final class ParallelTextLoader {
+    static final long DEFAULT_MIN_CHUNK_BYTES = 1 << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int PROBE_BYTES = 4096;
+
+    private ParallelTextLoader() {
+    }
+
+    /**
+     * Loads the snapshot at {@code path} into {@code out}.
+     *
+     * @param path          UTF-8 text snapshot
+     * @param out           list receiving the tasks in file order
+     * @param minChunkBytes lower bound on the size of a chunk
+     * @return the journal sequence number from a {@code # seq} header line, or 0 if absent
+     * @throws IOException if the file cannot be read
+     */
+    static long load(Path path, List<Task> out, long minChunkBytes) throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkBytes = Math.max(minChunkBytes, size / ((long) pool.getParallelism() * CHUNKS_PER_THREAD));
+            List<Long> boundaries = chunkBoundaries(channel, size, chunkBytes);
+
+            List<Callable<Chunk>> jobs = new ArrayList<>();
+            for (int i = 0; i + 1 < boundaries.size(); i++) {
+                long start = boundaries.get(i);
+                long end = boundaries.get(i + 1);
+                jobs.add(() -> scanChunk(channel, start, end));
+            }
+
+            List<Chunk> chunks = new ArrayList<>();
+            for (Future<Chunk> future : pool.invokeAll(jobs)) {
+                chunks.add(future.get());
+            }
+            // Only touch the output once every chunk succeeded, so a failure leaves it unchanged.
+            long sequence = 0;
+            for (Chunk chunk : chunks) {
+                out.addAll(chunk.tasks);
+                sequence = Math.max(sequence, chunk.sequence);
+            }
+            return sequence;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+            throw new IOException("Failed to load chunk: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading", e);
+        }
+    }
+
+    /**
+     * Returns chunk start offsets followed by the file size, each start sitting just after a newline.
+     */
+    private static List<Long> chunkBoundaries(FileChannel channel, long size, long chunkBytes) throws IOException {
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_BYTES);
+        long position = chunkBytes;
+        while (position < size) {
+            long lineEnd = nextLineStart(channel, position, probe);
+            if (lineEnd >= size) {
+                break;
+            }
+            boundaries.add(lineEnd);
+            position = lineEnd + chunkBytes;
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+
+    /**
+     * Returns the offset just after the first {@code '\n'} at or after {@code position}, or the file size.
+     */
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private static Chunk scanChunk(FileChannel channel, long start, long end) {
+        try {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            CharBuffer chars = StandardCharsets.UTF_8.decode(bytes);
+            List<Task> tasks = new ArrayList<>();
+            int offset = chars.arrayOffset() + chars.position();
+            long sequence = TaskLineScanner.scan(chars.array(), offset, offset + chars.remaining(), tasks);
+            return new Chunk(tasks, sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Chunk {
+        private final List<Task> tasks;
+        private final long sequence;
+
+        private Chunk(List<Task> tasks, long sequence) {
+            this.tasks = tasks;
+            this.sequence = sequence;
+        }
+    }
+}
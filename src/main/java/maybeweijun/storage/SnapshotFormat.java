@@ -0,0 +1,15 @@
+package maybeweijun.storage;
+
+/**
+ * On-disk layouts that {@link Storage} can use for its snapshot file.
+ */
+public enum SnapshotFormat {
+    /** Pipe-delimited text lines, e.g. {@code T | 0 | buy milk}. */
+    TEXT,
+    /** Fixed-layout binary records read through a memory map, see {@link BinarySnapshot}. */
+    BINARY,
+    /** Independently deflated blocks of text lines with a block index, see {@link CompressedSnapshot}. */
+    COMPRESSED,
+    /** Fixed-capacity pages updated in place of the whole file, see {@link PagedTaskFile}. */
+    PAGED
+}
@@ -1,123 +1,541 @@
 package maybeweijun.storage;
 
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.time.format.DateTimeFormatter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import maybeweijun.task.DateTimes;
 import maybeweijun.task.Deadline;
 import maybeweijun.task.Event;
 import maybeweijun.task.Task;
+import maybeweijun.task.TaskMutation;
 import maybeweijun.task.Todo;
 
 /**
  * Handles loading and saving of tasks to persistent storage.
+ *
+ * <p>By default every save rewrites the whole file, always through a temporary file that is renamed over
+ * the old one, and forced to disk according to the {@link DurabilityPolicy}. When the journal is enabled via
+ * {@link #enableJournal(long)}, mutations are appended to a {@link Journal} instead, and the snapshot
+ * is compacted in the background once the journal grows past a size threshold.
+ *
+ * <p>The snapshot itself is pipe-delimited text unless {@link SnapshotFormat#BINARY} is selected, in
+ * which case it lives in a sibling {@code .bin} file. An existing text snapshot is migrated to the
+ * binary file on first load and left untouched as a backup. {@link SnapshotFormat#COMPRESSED} works the
+ * same way with a sibling {@code .dfl} file of deflated blocks. {@link SnapshotFormat#PAGED} keeps tasks
+ * in a {@link PagedTaskFile} instead, so that {@link #apply(List, List)} rewrites only the pages touched
+ * by the mutations; the journal is not used in that mode.
  */
-public class Storage {
+public class Storage implements StorageBackend {
     private final String filePath;
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
     private static final int SPLIT_LIMIT_TWO = 2;
+    private static final String SEQUENCE_HEADER = "# seq ";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private static final String TEXT_EXTENSION = ".txt";
+    private static final String BINARY_EXTENSION = ".bin";
+    private static final String COMPRESSED_EXTENSION = ".dfl";
+
+    private static final long DEFAULT_PARALLEL_LOAD_THRESHOLD_BYTES = 16L << 20;
+    private static final long NO_SEQUENCE = -1;
+    private static final String PAGED_KEY = "pages";
+
+    private SnapshotFormat format = SnapshotFormat.TEXT;
+    private long parallelLoadThresholdBytes = DEFAULT_PARALLEL_LOAD_THRESHOLD_BYTES;
+    private final ForceScheduler forces = new ForceScheduler();
+    private Journal journal;
+    private long compactionThresholdBytes;
+    private ExecutorService compactor;
+    private Future<?> compaction;
+    private PagedTaskFile pagedFile;
 
     public Storage(String filePath) {
         this.filePath = filePath;
     }
 
     /**
-     * Lenient load: returns whatever can be parsed, skips malformed lines, and swallows IO issues
+     * Selects the layout used for snapshot files. Must be called before {@link #load()}.
+     *
+     * @param format the snapshot layout
+     */
+    public void setSnapshotFormat(SnapshotFormat format) {
+        assert format != null : "Snapshot format must not be null";
+        this.format = format;
+    }
+
+    /**
+     * Selects when snapshot writes and journal appends are forced to disk.
+     *
+     * @param policy       the durability policy
+     * @param periodMillis minimum time between forces under {@link DurabilityPolicy#PERIODIC}; ignored otherwise.
+     *                     Writes that are not forced right away are forced by a background task within this time
+     */
+    public void setDurabilityPolicy(DurabilityPolicy policy, long periodMillis) {
+        assert policy != null : "Durability policy must not be null";
+        assert periodMillis >= 0 : "Period must not be negative";
+        forces.setPolicy(policy, periodMillis);
+    }
+
+    /**
+     * Sets the text snapshot size from which {@link #load()} scans the file in parallel chunks.
+     * Smaller files are read sequentially, which is faster when there is little work to split.
+     *
+     * @param thresholdBytes minimum file size for parallel loading
+     */
+    public void setParallelLoadThreshold(long thresholdBytes) {
+        assert thresholdBytes >= 0 : "Threshold must not be negative";
+        this.parallelLoadThresholdBytes = thresholdBytes;
+    }
+
+    /**
+     * Returns the path of the binary snapshot, derived from the text path by swapping the extension.
+     *
+     * @return binary snapshot path
+     */
+    public Path getBinaryPath() {
+        return Paths.get(basePath() + BINARY_EXTENSION);
+    }
+
+    /**
+     * Returns the path of the compressed snapshot, derived from the text path by swapping the extension.
+     *
+     * @return compressed snapshot path
+     */
+    public Path getCompressedPath() {
+        return Paths.get(basePath() + COMPRESSED_EXTENSION);
+    }
+
+    /**
+     * Switches this storage to write-ahead journal mode.
+     *
+     * <p>Mutations passed to {@link #apply(List, List)} are then appended as single records, and the
+     * snapshot file is rewritten in the background only once the journal exceeds the given size.
+     *
+     * @param compactionThresholdBytes journal size that triggers a background compaction
+     */
+    public void enableJournal(long compactionThresholdBytes) {
+        assert compactionThresholdBytes > 0 : "Compaction threshold must be positive";
+        this.journal = new Journal(filePath);
+        this.compactionThresholdBytes = compactionThresholdBytes;
+    }
+
+    /**
+     * Lenient load: returns whatever can be parsed, skips malformed lines, and swallows IO issues.
+     * In journal mode, journal records newer than the snapshot are replayed on top of it.
      */
+    @Override
     public List<Task> load() {
         ArrayList<Task> tasks = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                if (parts.length < 3) continue;
-                String type = parts[0].trim();
-                boolean isDone = parts[1].trim().equals("1");
-                String description = parts[2].trim();
-
-                switch (type) {
-                    case "T": {
-                        Task todo = new Todo(description);
-                        if (isDone) todo.mark();
-                        tasks.add(todo);
-                        break;
-                    }
-                    case "D": {
-                        if (parts.length >= 4) {
-                            try {
-                                String by = parts[3].trim();
-                                Task deadline = new Deadline(description, by);
-                                if (isDone) deadline.mark();
-                                tasks.add(deadline);
-                            } catch (RuntimeException ex) {
-                                // skip malformed date/time
-                            }
-                        }
-                        break;
-                    }
-                    case "E": {
-                        if (parts.length >= 4) {
-                            String[] eventTimes = parts[3].split(" to ", SPLIT_LIMIT_TWO);
-                            if (eventTimes.length == SPLIT_LIMIT_TWO) {
-                                try {
-                                    String from = eventTimes[0].trim();
-                                    String to = eventTimes[1].trim();
-                                    Task event = new Event(description, from, to);
-                                    if (isDone) event.mark();
-                                    tasks.add(event);
-                                } catch (RuntimeException ex) {
-                                    // skip malformed date/time
-                                }
-                            }
-                        }
-                        break;
-                    }
-                    default:
-                        // skip unknown types
-                        break;
+        if (format == SnapshotFormat.PAGED && pagedFile().exists()) {
+            try {
+                tasks.addAll(pagedFile().readAll());
+                int unreadable = pagedFile().getUnreadablePages();
+                if (unreadable > 0) {
+                    System.out.println("Failed to load state: skipped " + unreadable + " unreadable pages");
+                    // The page directory still counts the lost tasks; rewriting brings it in line with the list.
+                    writeSnapshot(tasks, NO_SEQUENCE);
                 }
+            } catch (IOException e) {
+                System.out.println("Failed to load state: " + e.getMessage());
+            }
+            return tasks;
+        }
+        boolean isMigrating = format == SnapshotFormat.PAGED
+                || format == SnapshotFormat.BINARY && !Files.exists(getBinaryPath())
+                || format == SnapshotFormat.COMPRESSED && !Files.exists(getCompressedPath());
+        long snapshotSeq = isMigrating || format == SnapshotFormat.TEXT
+                ? readTextSnapshot(tasks)
+                : readFormattedSnapshot(tasks);
+        if (journal != null) {
+            journal.replay(tasks, snapshotSeq);
+        }
+        if (isMigrating) {
+            try {
+                writeSnapshot(tasks, journal == null ? 0 : journal.getLastSeq());
+            } catch (IOException e) {
+                System.out.println("Failed to migrate state: " + e.getMessage());
             }
-        } catch (IOException e) {
-            System.out.println("Failed to load state: " + e.getMessage());
         }
         return tasks;
     }
 
+    /**
+     * Lenient range load: returns the tasks at positions {@code [from, to)}, or fewer if the list is shorter.
+     * With the compressed format only the blocks holding the range are inflated; in journal mode and for
+     * the other formats the whole state is loaded first.
+     *
+     * @param from first position, inclusive
+     * @param to   last position, exclusive
+     * @return the tasks in the range
+     */
+    public List<Task> loadRange(int from, int to) {
+        assert from >= 0 && from <= to : "Invalid range";
+        if (format == SnapshotFormat.COMPRESSED && journal == null && Files.exists(getCompressedPath())) {
+            List<Task> tasks = new ArrayList<>();
+            try {
+                CompressedSnapshot.readRange(getCompressedPath(), from, to, tasks);
+            } catch (IOException e) {
+                System.out.println("Failed to load state: " + e.getMessage());
+            }
+            return tasks;
+        }
+        List<Task> tasks = load();
+        return new ArrayList<>(tasks.subList(Math.min(from, tasks.size()), Math.min(to, tasks.size())));
+    }
+
     /**
      * Lenient save: swallows IO issues, used by app runtime.
+     * In journal mode this compacts synchronously, leaving an up-to-date snapshot and an empty journal.
      */
+    @Override
     public void save(List<Task> tasks) {
         assert tasks != null : "Tasks to save must not be null";
-        try (FileWriter writer = new FileWriter(filePath, false)) {
-            for (Task task : tasks) {
-                StringBuilder sb = new StringBuilder();
-                if (task instanceof Todo) {
-                    sb.append("T | ");
-                    sb.append(task.isDone() ? "1 | " : "0 | ");
-                    sb.append(task.getDescription());
-                } else if (task instanceof Deadline) {
-                    Deadline d = (Deadline) task;
-                    sb.append("D | ");
-                    sb.append(task.isDone() ? "1 | " : "0 | ");
-                    sb.append(task.getDescription()).append(" | ")
-                      .append(d.getBy().format(FORMATTER));
-                } else if (task instanceof Event) {
-                    Event e = (Event) task;
-                    sb.append("E | ");
-                    sb.append(task.isDone() ? "1 | " : "0 | ");
-                    sb.append(task.getDescription()).append(" | ")
-                      .append(e.getFrom().format(FORMATTER)).append(" to ")
-                      .append(e.getTo().format(FORMATTER));
-                }
-                writer.write(sb.toString());
-                writer.write(System.lineSeparator());
+        if (journal != null && format != SnapshotFormat.PAGED) {
+            awaitCompaction();
+            try {
+                long seq = journal.rotate();
+                compact(tasks, seq);
+            } catch (IOException e) {
+                System.out.println("Failed to save state: " + e.getMessage());
             }
+            return;
+        }
+        try {
+            writeSnapshot(tasks, NO_SEQUENCE);
         } catch (IOException e) {
             System.out.println("Failed to save state: " + e.getMessage());
         }
     }
+
+    /**
+     * Persists the given mutations. With the paged format only the touched pages are rewritten; in journal
+     * mode they are appended to the journal; otherwise the current tasks are saved in full.
+     * Nothing is written if there are no mutations.
+     *
+     * @param mutations mutations applied since the last call, in order
+     * @param current   the full current list, used for full saves and compaction
+     */
+    @Override
+    public void apply(List<TaskMutation> mutations, List<Task> current) {
+        assert mutations != null : "Mutations must not be null";
+        if (mutations.isEmpty()) {
+            return;
+        }
+        if (format == SnapshotFormat.PAGED) {
+            try {
+                pagedFile().apply(mutations, current, shouldForce(PAGED_KEY, () -> pagedFile().force()));
+            } catch (IOException e) {
+                // The page directory may now disagree with the list; a full rewrite brings both back in line.
+                save(current);
+            }
+            return;
+        }
+        if (journal == null) {
+            save(current);
+            return;
+        }
+        try {
+            journal.append(mutations, shouldForce(journal, journal::force));
+        } catch (IOException e) {
+            System.out.println("Failed to save state: " + e.getMessage());
+            return;
+        }
+        if (journal.size() >= compactionThresholdBytes) {
+            scheduleCompaction(current);
+        }
+    }
+
+    /**
+     * Writes the currently stored tasks to {@code target} in the plain text format, whatever format this
+     * storage uses itself. Handy for backing up or inspecting a binary or paged store.
+     *
+     * @param target path of the text file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void exportText(Path target) throws IOException {
+        List<Task> tasks = load();
+        AtomicFile.write(target, channel -> {
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, Charset.defaultCharset()));
+            writeTasks(writer, tasks);
+            writer.flush();
+        }, shouldForce(target, () -> AtomicFile.force(target)));
+    }
+
+    /**
+     * Waits for any background compaction to finish, forces writes still pending under
+     * {@link DurabilityPolicy#PERIODIC}, and releases open files.
+     */
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            compactor = null;
+        }
+        forces.close();
+        if (journal != null) {
+            if (forces.getPolicy() != DurabilityPolicy.NONE) {
+                try {
+                    journal.force();
+                } catch (IOException e) {
+                    System.out.println("Failed to sync journal: " + e.getMessage());
+                }
+            }
+            journal.close();
+        }
+    }
+
+    /**
+     * Encodes a task as a single storage line, e.g. {@code D | 0 | submit report | 2025-01-02 1230}.
+     *
+     * @param task the task to encode
+     * @return the encoded line without a line separator
+     */
+    static String encode(Task task) {
+        StringBuilder sb = new StringBuilder();
+        if (task instanceof Todo) {
+            sb.append("T | ");
+            sb.append(task.isDone() ? "1 | " : "0 | ");
+            sb.append(task.getDescription());
+        } else if (task instanceof Deadline) {
+            Deadline d = (Deadline) task;
+            sb.append("D | ");
+            sb.append(task.isDone() ? "1 | " : "0 | ");
+            sb.append(task.getDescription()).append(" | ");
+            DateTimes.formatTo(d.getBy(), sb);
+        } else if (task instanceof Event) {
+            Event e = (Event) task;
+            sb.append("E | ");
+            sb.append(task.isDone() ? "1 | " : "0 | ");
+            sb.append(task.getDescription()).append(" | ");
+            DateTimes.formatTo(e.getFrom(), sb).append(" to ");
+            DateTimes.formatTo(e.getTo(), sb);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Decodes a single storage line. This is the reference decoder; bulk loading goes through
+     * {@link TaskLineScanner}, which falls back to this method for lines it cannot decode itself.
+     *
+     * @param line the line to decode
+     * @return the decoded task, or null if the line is malformed or of an unknown type
+     */
+    static Task decode(String line) {
+        String[] parts = line.split("\\|");
+        if (parts.length < 3) {
+            return null;
+        }
+        String type = parts[0].trim();
+        boolean isDone = parts[1].trim().equals("1");
+        String description = parts[2].trim();
+
+        Task task;
+        try {
+            switch (type) {
+                case "T":
+                    task = new Todo(description);
+                    break;
+                case "D":
+                    if (parts.length < 4) {
+                        return null;
+                    }
+                    task = new Deadline(description, parts[3].trim());
+                    break;
+                case "E": {
+                    if (parts.length < 4) {
+                        return null;
+                    }
+                    String[] eventTimes = parts[3].split(" to ", SPLIT_LIMIT_TWO);
+                    if (eventTimes.length != SPLIT_LIMIT_TWO) {
+                        return null;
+                    }
+                    task = new Event(description, eventTimes[0].trim(), eventTimes[1].trim());
+                    break;
+                }
+                default:
+                    // skip unknown types
+                    return null;
+            }
+        } catch (RuntimeException ex) {
+            // skip malformed date/time
+            return null;
+        }
+        if (isDone) {
+            task.mark();
+        }
+        return task;
+    }
+
+    private long readTextSnapshot(List<Task> tasks) {
+        Path path = Paths.get(filePath);
+        try {
+            // Chunks are decoded independently, which is only safe when the file is UTF-8 like FileReader's.
+            if (Charset.defaultCharset().equals(StandardCharsets.UTF_8)
+                    && Files.size(path) >= parallelLoadThresholdBytes) {
+                return ParallelTextLoader.load(path, tasks, ParallelTextLoader.DEFAULT_MIN_CHUNK_BYTES);
+            }
+        } catch (IOException e) {
+            // fall through to the sequential loader, which reports the problem
+        }
+        try (FileReader reader = new FileReader(filePath)) {
+            return TaskLineScanner.scan(reader, tasks);
+        } catch (IOException e) {
+            System.out.println("Failed to load state: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private long readFormattedSnapshot(List<Task> tasks) {
+        try {
+            return format == SnapshotFormat.COMPRESSED
+                    ? CompressedSnapshot.read(getCompressedPath(), tasks)
+                    : BinarySnapshot.read(getBinaryPath(), tasks);
+        } catch (IOException e) {
+            System.out.println("Failed to load state: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static void writeTasks(Writer writer, List<Task> tasks) throws IOException {
+        for (Task task : tasks) {
+            writer.write(encode(task));
+            writer.write(System.lineSeparator());
+        }
+    }
+
+    private void scheduleCompaction(List<Task> current) {
+        if (compaction != null && !compaction.isDone()) {
+            return;
+        }
+        // Later forces reach only the fresh active log, so records about to be rotated are forced now.
+        forces.forceNow(journal);
+        long seq;
+        try {
+            seq = journal.rotate();
+        } catch (IOException e) {
+            System.out.println("Failed to rotate journal: " + e.getMessage());
+            return;
+        }
+        // Copy the list so that later adds/deletes on the caller's thread do not race with the writer.
+        List<Task> copy = new ArrayList<>(current);
+        compaction = compactor().submit(() -> {
+            try {
+                compact(copy, seq);
+            } catch (IOException e) {
+                System.out.println("Failed to compact state: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Writes a snapshot covering every journal record up to {@code seq} and drops the rotated journal.
+     */
+    private void compact(List<Task> tasks, long seq) throws IOException {
+        writeSnapshot(tasks, seq);
+        journal.deleteRotated();
+    }
+
+    /**
+     * Atomically replaces the snapshot in the configured format, forcing it per the durability policy.
+     *
+     * @param seq journal sequence number covered by the snapshot, or {@link #NO_SEQUENCE} outside journal mode
+     */
+    private void writeSnapshot(List<Task> tasks, long seq) throws IOException {
+        if (format == SnapshotFormat.BINARY) {
+            Path path = getBinaryPath();
+            BinarySnapshot.write(path, tasks, Math.max(seq, 0), shouldForce(path, () -> AtomicFile.force(path)));
+            return;
+        }
+        if (format == SnapshotFormat.COMPRESSED) {
+            Path path = getCompressedPath();
+            CompressedSnapshot.write(path, tasks, Math.max(seq, 0),
+                    shouldForce(path, () -> AtomicFile.force(path)));
+            return;
+        }
+        if (format == SnapshotFormat.PAGED) {
+            pagedFile().rewrite(tasks, shouldForce(PAGED_KEY, () -> pagedFile().force()));
+            return;
+        }
+        Path path = Paths.get(filePath);
+        boolean isForced = shouldForce(path, () -> AtomicFile.force(path));
+        AtomicFile.write(path, channel -> {
+            Writer writer = new BufferedWriter(Channels.newWriter(channel, Charset.defaultCharset()));
+            if (seq != NO_SEQUENCE) {
+                writer.write(SEQUENCE_HEADER + seq);
+                writer.write(System.lineSeparator());
+            }
+            writeTasks(writer, tasks);
+            writer.flush();
+        }, isForced);
+    }
+
+    private boolean shouldForce(Object key, ForceScheduler.PendingForce pending) {
+        return forces.shouldForce(key, pending);
+    }
+
+    /**
+     * Returns the number of files or logs written but not yet forced under {@link DurabilityPolicy#PERIODIC}.
+     */
+    int pendingForceCount() {
+        return forces.pendingCount();
+    }
+
+    private void awaitCompaction() {
+        if (compaction == null) {
+            return;
+        }
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("Failed to compact state: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the snapshot path without its {@code .txt} extension, the stem shared by sibling files.
+     */
+    private String basePath() {
+        return filePath.endsWith(TEXT_EXTENSION)
+                ? filePath.substring(0, filePath.length() - TEXT_EXTENSION.length())
+                : filePath;
+    }
+
+    private PagedTaskFile pagedFile() {
+        if (pagedFile == null) {
+            pagedFile = new PagedTaskFile(basePath());
+        }
+        return pagedFile;
+    }
+
+    private ExecutorService compactor() {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "storage-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return compactor;
+    }
 }
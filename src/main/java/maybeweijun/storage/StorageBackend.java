@@ -0,0 +1,38 @@
+package maybeweijun.storage;
+
+import java.util.List;
+
+import maybeweijun.task.Task;
+import maybeweijun.task.TaskMutation;
+
+/**
+ * Persistent home of the task list. Implementations are lenient: I/O problems are reported and
+ * swallowed rather than thrown, so that the app keeps running on a flaky disk.
+ */
+public interface StorageBackend {
+
+    /**
+     * Returns every stored task in list order, skipping anything that cannot be read.
+     */
+    List<Task> load();
+
+    /**
+     * Replaces the stored state with the given tasks.
+     *
+     * @param tasks the full task list
+     */
+    void save(List<Task> tasks);
+
+    /**
+     * Persists mutations made since the previous call. Nothing is written if there are none.
+     *
+     * @param mutations mutations in the order they were applied
+     * @param current   the full list after the mutations, for backends that need task contents
+     */
+    void apply(List<TaskMutation> mutations, List<Task> current);
+
+    /**
+     * Finishes background work and releases open files.
+     */
+    void close();
+}
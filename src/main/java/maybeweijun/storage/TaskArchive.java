@@ -0,0 +1,97 @@
+package maybeweijun.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import maybeweijun.task.Task;
+
+/**
+ * Cold storage for completed tasks that no longer need to sit in the live list.
+ *
+ * <p>The archive is a gzip file holding one encoded task per line, in the text snapshot format.
+ * Each call to {@link #append(List)} adds a separate gzip member to the end of the file, so archiving
+ * never rewrites what is already there; readers see the members as one continuous stream. Searching
+ * decompresses the file line by line and never holds more than the current line in memory.
+ */
+public class TaskArchive {
+    private final Path path;
+
+    /**
+     * Creates an archive backed by the given file, which is created on first append.
+     *
+     * @param filePath path of the gzip archive
+     */
+    public TaskArchive(String filePath) {
+        this.path = Paths.get(filePath);
+    }
+
+    /**
+     * Appends the given tasks to the archive as a new gzip member and forces it to disk.
+     *
+     * @param tasks tasks to archive, in list order
+     * @throws IOException if the archive cannot be written
+     */
+    public void append(List<Task> tasks) throws IOException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileOutputStream stream = new FileOutputStream(path.toFile(), true)) {
+            GZIPOutputStream gzip = new GZIPOutputStream(stream);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+            for (Task task : tasks) {
+                writer.write(Storage.encode(task));
+                writer.write('\n');
+            }
+            writer.flush();
+            gzip.finish();
+            // The tasks are removed from the live list right after this returns, so they must be on disk.
+            stream.getChannel().force(false);
+        }
+    }
+
+    /**
+     * Streams the archive and passes every task whose description contains the keyword,
+     * ignoring case, to {@code sink}. Malformed lines are skipped.
+     *
+     * @param keyword text to look for
+     * @param sink    receives matching tasks in archive order
+     * @return the number of matches
+     * @throws IOException if the archive exists but cannot be read
+     */
+    public int find(String keyword, Consumer<Task> sink) throws IOException {
+        if (!Files.exists(path) || Files.size(path) == 0) {
+            return 0;
+        }
+        String needle = keyword.toLowerCase();
+        int matches = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Task task = Storage.decode(line);
+                if (task != null && task.getDescription().toLowerCase().contains(needle)) {
+                    sink.accept(task);
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,254 @@
+package maybeweijun.storage;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import maybeweijun.task.DateTimes;
+import maybeweijun.task.Deadline;
+import maybeweijun.task.Event;
+import maybeweijun.task.Task;
+import maybeweijun.task.Todo;
+
+/**
+ * Single-pass scanner for the pipe-delimited text snapshot.
+ *
+ * <p>Lines are located directly in a reusable {@code char[]} buffer and fields are read by index, so
+ * the only objects created per line are the description string, the date/times and the task itself.
+ * Dates in the fixed {@code yyyy-MM-dd HHmm} layout are decoded digit by digit by {@link DateTimes}.
+ *
+ * <p>Any line the fast path is not certain about (unusual widths, out-of-range date fields, stray
+ * whitespace inside dates) is handed to {@link Storage#decode(String)}, so the result is always identical
+ * to the original split-based loader.
+ */
+final class TaskLineScanner {
+    private static final int INITIAL_BUFFER_CHARS = 1 << 16;
+    private static final int MAX_TRACKED_FIELDS = 4;
+    private static final String SEQUENCE_HEADER = "# seq ";
+    private static final String EVENT_SEPARATOR = " to ";
+
+    private TaskLineScanner() {
+    }
+
+    /**
+     * Reads every line from the reader, appending decoded tasks and skipping malformed lines.
+     *
+     * @param reader source of snapshot text
+     * @param out    list receiving the tasks in file order
+     * @return the journal sequence number from a {@code # seq} header line, or 0 if absent
+     * @throws IOException if reading fails
+     */
+    static long scan(Reader reader, List<Task> out) throws IOException {
+        char[] buf = new char[INITIAL_BUFFER_CHARS];
+        int[] fields = new int[MAX_TRACKED_FIELDS * 2];
+        int length = 0;
+        long sequence = 0;
+        int read;
+        while ((read = reader.read(buf, length, buf.length - length)) != -1) {
+            length += read;
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                char c = buf[i];
+                if (c == '\n' || c == '\r') {
+                    sequence = scanLine(buf, lineStart, i, fields, out, sequence);
+                    lineStart = i + 1;
+                }
+            }
+            length -= lineStart;
+            System.arraycopy(buf, lineStart, buf, 0, length);
+            if (length == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+        }
+        return scanLine(buf, 0, length, fields, out, sequence);
+    }
+
+    /**
+     * Decodes every line in {@code buf[start, end)}, appending tasks and skipping malformed lines.
+     *
+     * @param buf   characters to scan
+     * @param start index of the first character
+     * @param end   index one past the last character
+     * @param out   list receiving the tasks in order
+     * @return the journal sequence number from a {@code # seq} header line, or 0 if absent
+     */
+    static long scan(char[] buf, int start, int end, List<Task> out) {
+        int[] fields = new int[MAX_TRACKED_FIELDS * 2];
+        long sequence = 0;
+        int lineStart = start;
+        for (int i = start; i < end; i++) {
+            char c = buf[i];
+            if (c == '\n' || c == '\r') {
+                sequence = scanLine(buf, lineStart, i, fields, out, sequence);
+                lineStart = i + 1;
+            }
+        }
+        return scanLine(buf, lineStart, end, fields, out, sequence);
+    }
+
+    private static long scanLine(char[] buf, int start, int end, int[] fields, List<Task> out, long sequence) {
+        if (start == end) {
+            return sequence;
+        }
+        if (startsWith(buf, start, end, SEQUENCE_HEADER)) {
+            return parseSequence(buf, start + SEQUENCE_HEADER.length(), end);
+        }
+        Task task = parseLine(buf, start, end, fields);
+        if (task != null) {
+            out.add(task);
+        }
+        return sequence;
+    }
+
+    /**
+     * Decodes one line held in {@code buf[start, end)}.
+     *
+     * @param fields scratch array of at least eight ints, reused across lines
+     * @return the task, or null if the line is malformed
+     */
+    static Task parseLine(char[] buf, int start, int end, int[] fields) {
+        // Field i spans [fields[2i], fields[2i + 1]); only the first four fields are ever read.
+        int fieldCount = 0;
+        int lastNonEmptyField = -1;
+        int currentStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i < end && buf[i] != '|') {
+                continue;
+            }
+            if (fieldCount < MAX_TRACKED_FIELDS) {
+                fields[2 * fieldCount] = currentStart;
+                fields[2 * fieldCount + 1] = i;
+            }
+            if (i > currentStart) {
+                lastNonEmptyField = fieldCount;
+            }
+            fieldCount++;
+            currentStart = i + 1;
+        }
+        // String.split drops trailing empty fields, so only fields up to the last non-empty one count.
+        int parts = lastNonEmptyField + 1;
+        if (parts < 3) {
+            return null;
+        }
+
+        char type = singleChar(buf, fields[0], fields[1]);
+        boolean isDone = singleChar(buf, fields[2], fields[3]) == '1';
+        Task task;
+        switch (type) {
+            case 'T':
+                task = new Todo(trimmed(buf, fields[4], fields[5]));
+                break;
+            case 'D': {
+                if (parts < 4) {
+                    return null;
+                }
+                LocalDateTime by = parseDateTime(buf, fields[6], fields[7]);
+                if (by == null) {
+                    return fallback(buf, start, end);
+                }
+                task = new Deadline(trimmed(buf, fields[4], fields[5]), by);
+                break;
+            }
+            case 'E': {
+                if (parts < 4) {
+                    return null;
+                }
+                int separator = indexOf(buf, fields[6], fields[7], EVENT_SEPARATOR);
+                if (separator < 0) {
+                    return null;
+                }
+                LocalDateTime from = parseDateTime(buf, fields[6], separator);
+                LocalDateTime to = parseDateTime(buf, separator + EVENT_SEPARATOR.length(), fields[7]);
+                if (from == null || to == null) {
+                    return fallback(buf, start, end);
+                }
+                task = new Event(trimmed(buf, fields[4], fields[5]), from, to);
+                break;
+            }
+            default:
+                return null;
+        }
+        if (isDone) {
+            task.mark();
+        }
+        return task;
+    }
+
+    /**
+     * Parses a trimmed {@code yyyy-MM-dd HHmm} value in {@code buf[start, end)}.
+     *
+     * @return the date/time, or null if the value is not a plainly valid fixed-width date/time
+     */
+    static LocalDateTime parseDateTime(char[] buf, int start, int end) {
+        while (start < end && buf[start] <= ' ') {
+            start++;
+        }
+        while (end > start && buf[end - 1] <= ' ') {
+            end--;
+        }
+        return DateTimes.parseOrNull(buf, start, end);
+    }
+
+    private static Task fallback(char[] buf, int start, int end) {
+        return Storage.decode(new String(buf, start, end - start));
+    }
+
+    /**
+     * Returns the only character of the trimmed field, or 0 if the trimmed field is not one character.
+     */
+    private static char singleChar(char[] buf, int start, int end) {
+        while (start < end && buf[start] <= ' ') {
+            start++;
+        }
+        while (end > start && buf[end - 1] <= ' ') {
+            end--;
+        }
+        return end - start == 1 ? buf[start] : 0;
+    }
+
+    private static String trimmed(char[] buf, int start, int end) {
+        while (start < end && buf[start] <= ' ') {
+            start++;
+        }
+        while (end > start && buf[end - 1] <= ' ') {
+            end--;
+        }
+        return new String(buf, start, end - start);
+    }
+
+    private static int indexOf(char[] buf, int start, int end, String needle) {
+        int last = end - needle.length();
+        outer:
+        for (int i = start; i <= last; i++) {
+            for (int j = 0; j < needle.length(); j++) {
+                if (buf[i + j] != needle.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(char[] buf, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buf[start + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseSequence(char[] buf, int start, int end) {
+        try {
+            return Long.parseLong(new String(buf, start, end - start).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package maybeweijun.task;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Keeps the tasks of a list grouped by type, in list order within each group: todos, then deadlines,
+ * then events, then any other task type.
+ *
+ * <p>A list only ever grows at the end, so each group stays in list order simply by appending to it, and
+ * removal is a hash lookup. {@link #sorted()} concatenates the groups without comparing tasks and caches
+ * the result until the next add or remove.
+ */
+public class CategoryIndex implements TaskIndex {
+    private static final int CATEGORY_COUNT = 4;
+
+    private final List<LinkedHashMap<Long, Task>> buckets = new ArrayList<>();
+    private TaskList sorted;
+
+    /**
+     * Creates an empty index.
+     */
+    public CategoryIndex() {
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            buckets.add(new LinkedHashMap<>());
+        }
+    }
+
+    @Override
+    public void onAdd(Task task) {
+        buckets.get(categoryOf(task)).put(task.getId(), task);
+        sorted = null;
+    }
+
+    @Override
+    public void onRemove(Task task) {
+        buckets.get(categoryOf(task)).remove(task.getId());
+        sorted = null;
+    }
+
+    /**
+     * Returns the tasks ordered by category, keeping list order within a category. The result is
+     * shared until the indexed list next gains or loses a task, and must not be modified.
+     *
+     * @return tasks ordered by category
+     */
+    public TaskList sorted() {
+        if (sorted == null) {
+            int size = 0;
+            for (LinkedHashMap<Long, Task> bucket : buckets) {
+                size += bucket.size();
+            }
+            List<Task> ordered = new ArrayList<>(size);
+            for (LinkedHashMap<Long, Task> bucket : buckets) {
+                ordered.addAll(bucket.values());
+            }
+            sorted = new TaskList(ordered);
+        }
+        return sorted;
+    }
+
+    /**
+     * Returns the rank of the task's category: todos 0, deadlines 1, events 2 and anything else 3.
+     */
+    static int categoryOf(Task task) {
+        if (task instanceof Todo) {
+            return 0;
+        }
+        if (task instanceof Deadline) {
+            return 1;
+        }
+        if (task instanceof Event) {
+            return 2;
+        }
+        return CATEGORY_COUNT - 1;
+    }
+}
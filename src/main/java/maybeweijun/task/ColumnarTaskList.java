@@ -0,0 +1,213 @@
+package maybeweijun.task;
+
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Ordered list of tasks stored column by column instead of as one object per task.
+ *
+ * <p>Each task occupies one slot in a handful of parallel arrays: a {@code byte} type tag, a bit in a
+ * done {@link BitSet}, two {@code long} columns holding the deadline or event start/end as minutes since
+ * the epoch (UTC), and a reference to the description string. There is no per-task object header and no
+ * {@link LocalDateTime}, which makes a large list several times smaller than the equivalent
+ * {@code ArrayList<Task>}.
+ *
+ * <p>{@link #get(int)} materializes a fresh {@link Task} from the columns on every call. The returned
+ * object is a detached copy: use {@link #mark(int)} and {@link #unmark(int)} to change the stored state.
+ */
+public class ColumnarTaskList {
+    static final byte TYPE_TODO = 'T';
+    static final byte TYPE_DEADLINE = 'D';
+    static final byte TYPE_EVENT = 'E';
+    private static final int INITIAL_CAPACITY = 16;
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] firsts = new long[INITIAL_CAPACITY];
+    private long[] seconds = new long[INITIAL_CAPACITY];
+    private String[] descriptions = new String[INITIAL_CAPACITY];
+    private final BitSet done = new BitSet();
+    private int size = 0;
+
+    /**
+     * Creates an empty list.
+     */
+    public ColumnarTaskList() {
+    }
+
+    /**
+     * Creates a list holding copies of the given tasks.
+     *
+     * @param initial the tasks to copy, may be null
+     */
+    public ColumnarTaskList(List<Task> initial) {
+        if (initial != null) {
+            ensureCapacity(initial.size());
+            for (Task task : initial) {
+                add(task);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tasks in the list.
+     *
+     * @return current size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends a copy of the task's state to the end of the list.
+     *
+     * @param task the task to add
+     */
+    public void add(Task task) {
+        assert task != null : "Task must not be null";
+        ensureCapacity(size + 1);
+        if (task instanceof Deadline) {
+            types[size] = TYPE_DEADLINE;
+            firsts[size] = DateTimes.toEpochMinute(((Deadline) task).getBy());
+            seconds[size] = 0;
+        } else if (task instanceof Event) {
+            types[size] = TYPE_EVENT;
+            firsts[size] = DateTimes.toEpochMinute(((Event) task).getFrom());
+            seconds[size] = DateTimes.toEpochMinute(((Event) task).getTo());
+        } else {
+            types[size] = TYPE_TODO;
+            firsts[size] = 0;
+            seconds[size] = 0;
+        }
+        descriptions[size] = task.getDescription();
+        done.set(size, task.isDone());
+        size++;
+    }
+
+    /**
+     * Materializes the task at the specified index.
+     *
+     * @param index zero-based index
+     * @return a new task object holding the stored state
+     */
+    public Task get(int index) {
+        checkIndex(index);
+        Task task;
+        switch (types[index]) {
+            case TYPE_DEADLINE:
+                task = new Deadline(descriptions[index], DateTimes.fromEpochMinute(firsts[index]));
+                break;
+            case TYPE_EVENT:
+                task = new Event(descriptions[index], DateTimes.fromEpochMinute(firsts[index]),
+                        DateTimes.fromEpochMinute(seconds[index]));
+                break;
+            default:
+                task = new Todo(descriptions[index]);
+                break;
+        }
+        if (done.get(index)) {
+            task.mark();
+        }
+        return task;
+    }
+
+    /**
+     * Removes the task at the specified index, shifting later tasks down by one.
+     *
+     * @param index zero-based index
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        int tail = size - index - 1;
+        System.arraycopy(types, index + 1, types, index, tail);
+        System.arraycopy(firsts, index + 1, firsts, index, tail);
+        System.arraycopy(seconds, index + 1, seconds, index, tail);
+        System.arraycopy(descriptions, index + 1, descriptions, index, tail);
+        for (int i = index; i < size - 1; i++) {
+            done.set(i, done.get(i + 1));
+        }
+        size--;
+        done.clear(size);
+        descriptions[size] = null;
+    }
+
+    /**
+     * Marks the task at the specified index as done.
+     *
+     * @param index zero-based index
+     */
+    public void mark(int index) {
+        checkIndex(index);
+        done.set(index);
+    }
+
+    /**
+     * Marks the task at the specified index as not done.
+     *
+     * @param index zero-based index
+     */
+    public void unmark(int index) {
+        checkIndex(index);
+        done.clear(index);
+    }
+
+    /**
+     * Returns whether the task at the specified index is done, without materializing it.
+     *
+     * @param index zero-based index
+     * @return true if done; false otherwise
+     */
+    public boolean isDone(int index) {
+        checkIndex(index);
+        return done.get(index);
+    }
+
+    /**
+     * Returns the description of the task at the specified index, without materializing it.
+     *
+     * @param index zero-based index
+     * @return task description
+     */
+    public String getDescription(int index) {
+        checkIndex(index);
+        return descriptions[index];
+    }
+
+    /**
+     * Returns a read-only list view that materializes tasks on access.
+     *
+     * @return view of this list
+     */
+    public List<Task> toList() {
+        return new AbstractList<Task>() {
+            @Override
+            public Task get(int index) {
+                return ColumnarTaskList.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= types.length) {
+            return;
+        }
+        int grown = Math.max(capacity, types.length * 2);
+        types = Arrays.copyOf(types, grown);
+        firsts = Arrays.copyOf(firsts, grown);
+        seconds = Arrays.copyOf(seconds, grown);
+        descriptions = Arrays.copyOf(descriptions, grown);
+    }
+}
@@ -0,0 +1,173 @@
+package maybeweijun.task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses and formats the fixed {@code yyyy-MM-dd HHmm} date/time layout used for input and storage, and
+ * converts date/times to and from minutes since the epoch.
+ *
+ * <p>Parsing reads the fifteen characters digit by digit instead of going through a
+ * {@code DateTimeFormatter}, and validation is strict: the year must have four digits and be at least 1,
+ * and a day that does not exist in its month is rejected rather than adjusted.
+ */
+public final class DateTimes {
+    /** The layout this class parses and formats. */
+    public static final String PATTERN = "yyyy-MM-dd HHmm";
+    private static final int LENGTH = PATTERN.length();
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private DateTimes() {
+    }
+
+    /**
+     * Parses text in the {@code yyyy-MM-dd HHmm} layout.
+     *
+     * @param text the text to parse, without surrounding whitespace
+     * @return the parsed date/time
+     * @throws DateTimeParseException if the text does not match the layout or names an invalid date/time
+     */
+    public static LocalDateTime parse(CharSequence text) {
+        LocalDateTime dateTime = parseOrNull(text, 0, text.length());
+        if (dateTime == null) {
+            throw new DateTimeParseException("Expected " + PATTERN, text, 0);
+        }
+        return dateTime;
+    }
+
+    /**
+     * Parses the characters in {@code text[start, end)} in the {@code yyyy-MM-dd HHmm} layout.
+     *
+     * @param text  the text holding the value
+     * @param start index of the first character
+     * @param end   index after the last character
+     * @return the parsed date/time, or null if the range is not a valid date/time in the layout
+     */
+    public static LocalDateTime parseOrNull(CharSequence text, int start, int end) {
+        if (end - start != LENGTH || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-'
+                || text.charAt(start + 10) != ' ') {
+            return null;
+        }
+        return ofFields(digits(text, start, 4), digits(text, start + 5, 2), digits(text, start + 8, 2),
+                digits(text, start + 11, 2), digits(text, start + 13, 2));
+    }
+
+    /**
+     * Parses the characters in {@code buf[start, end)} in the {@code yyyy-MM-dd HHmm} layout, reading the
+     * array directly so that bulk loaders need not wrap it.
+     *
+     * @param buf   the characters holding the value
+     * @param start index of the first character
+     * @param end   index after the last character
+     * @return the parsed date/time, or null if the range is not a valid date/time in the layout
+     */
+    public static LocalDateTime parseOrNull(char[] buf, int start, int end) {
+        if (end - start != LENGTH || buf[start + 4] != '-' || buf[start + 7] != '-' || buf[start + 10] != ' ') {
+            return null;
+        }
+        return ofFields(digits(buf, start, 4), digits(buf, start + 5, 2), digits(buf, start + 8, 2),
+                digits(buf, start + 11, 2), digits(buf, start + 13, 2));
+    }
+
+    /**
+     * Formats a date/time in the {@code yyyy-MM-dd HHmm} layout.
+     *
+     * @param dateTime the date/time to format
+     * @return the formatted text
+     */
+    public static String format(LocalDateTime dateTime) {
+        return formatTo(dateTime, new StringBuilder(LENGTH)).toString();
+    }
+
+    /**
+     * Appends a date/time in the {@code yyyy-MM-dd HHmm} layout. Seconds are dropped.
+     *
+     * @param dateTime the date/time to format
+     * @param out      the builder to append to
+     * @return {@code out}, for chaining
+     */
+    public static StringBuilder formatTo(LocalDateTime dateTime, StringBuilder out) {
+        appendPadded(out, dateTime.getYear(), 4).append('-');
+        appendPadded(out, dateTime.getMonthValue(), 2).append('-');
+        appendPadded(out, dateTime.getDayOfMonth(), 2).append(' ');
+        appendPadded(out, dateTime.getHour(), 2);
+        return appendPadded(out, dateTime.getMinute(), 2);
+    }
+
+    /**
+     * Returns the minutes since the epoch of the given date/time, treating it as UTC and rounding
+     * seconds down.
+     *
+     * @param dateTime the date/time to convert
+     * @return epoch minute
+     */
+    public static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_MINUTE);
+    }
+
+    /**
+     * Returns the date/time at the given minute since the epoch, in UTC.
+     *
+     * @param epochMinute minutes since the epoch
+     * @return the corresponding date/time
+     */
+    public static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * SECONDS_PER_MINUTE, 0, ZoneOffset.UTC);
+    }
+
+    private static StringBuilder appendPadded(StringBuilder out, int value, int width) {
+        for (int limit = 10; width > 1; width--, limit *= 10) {
+            if (value < limit && value >= 0) {
+                out.append('0');
+            }
+        }
+        return out.append(value);
+    }
+
+    /**
+     * Returns the date/time with the given fields, or null if any field is missing (-1) or out of range.
+     */
+    private static LocalDateTime ofFields(int year, int month, int day, int hour, int minute) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || day > daysInMonth(year, month)) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2 && (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    /**
+     * Returns the decimal value of {@code count} digits at {@code start}, or -1 if any is not a digit.
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int digits(char[] buf, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = buf[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
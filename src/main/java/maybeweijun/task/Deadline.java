@@ -9,7 +9,6 @@ import java.time.format.DateTimeFormatter;
 public class Deadline extends Task {
 
     protected LocalDateTime by;
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
     private static final DateTimeFormatter PRINT_FORMATTER = DateTimeFormatter.ofPattern("MMM d yyyy ha");
 
     /**
@@ -19,7 +18,18 @@ public class Deadline extends Task {
      */
     public Deadline(String description, String by) {
         super(description);
-        this.by = LocalDateTime.parse(by, FORMATTER);
+        this.by = DateTimes.parse(by);
+    }
+
+    /**
+     * Creates a deadline using a pre-parsed deadline date/time.
+     *
+     * @param description description of the task
+     * @param by          deadline date/time
+     */
+    public Deadline(String description, LocalDateTime by) {
+        super(description);
+        this.by = by;
     }
 
 
@@ -27,6 +37,11 @@ public class Deadline extends Task {
         return by;
     }
 
+    @Override
+    public Deadline copy() {
+        return copyStateTo(new Deadline(getDescription(), by));
+    }
+
     @Override
     public String toString() {
         return "[D]" + super.toString() + " (by: " + by.format(PRINT_FORMATTER) + ")";
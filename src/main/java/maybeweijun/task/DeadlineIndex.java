@@ -0,0 +1,129 @@
+package maybeweijun.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Time-ordered index over the {@link Deadline} tasks of a list, keyed by due time in epoch minutes.
+ *
+ * <p>Range queries find the first due time in range in logarithmic time and then walk forward, so they
+ * cost O(log n + k) for k results. Deadlines that are not done are also kept in a second map, so
+ * {@link #overdue(LocalDateTime)} never walks past completed ones. Results come out ordered by due
+ * time; deadlines due in the same minute keep the order in which they were indexed.
+ */
+public class DeadlineIndex implements TaskIndex {
+    private final TreeMap<Long, List<Deadline>> byDueMinute = new TreeMap<>();
+    private final TreeMap<Long, List<Deadline>> pendingByDueMinute = new TreeMap<>();
+
+    @Override
+    public void onAdd(Task task) {
+        if (task instanceof Deadline) {
+            Deadline deadline = (Deadline) task;
+            put(byDueMinute, deadline);
+            if (!deadline.isDone()) {
+                put(pendingByDueMinute, deadline);
+            }
+        }
+    }
+
+    @Override
+    public void onRemove(Task task) {
+        if (task instanceof Deadline) {
+            remove(byDueMinute, (Deadline) task);
+            remove(pendingByDueMinute, (Deadline) task);
+        }
+    }
+
+    @Override
+    public void onUpdate(Task task) {
+        if (task instanceof Deadline) {
+            Deadline deadline = (Deadline) task;
+            remove(pendingByDueMinute, deadline);
+            if (!deadline.isDone()) {
+                put(pendingByDueMinute, deadline);
+            }
+        }
+    }
+
+    /**
+     * Returns the deadlines due strictly before the given time.
+     *
+     * @param time exclusive upper bound
+     * @return matching deadlines ordered by due time
+     */
+    public List<Deadline> dueBefore(LocalDateTime time) {
+        return flatten(byDueMinute.headMap(DateTimes.toEpochMinute(time), false));
+    }
+
+    /**
+     * Returns the deadlines due between the given times, both inclusive.
+     *
+     * @param from inclusive lower bound
+     * @param to   inclusive upper bound
+     * @return matching deadlines ordered by due time, empty if {@code to} is before {@code from}
+     */
+    public List<Deadline> dueBetween(LocalDateTime from, LocalDateTime to) {
+        long fromKey = DateTimes.toEpochMinute(from);
+        long toKey = DateTimes.toEpochMinute(to);
+        if (toKey < fromKey) {
+            return new ArrayList<>();
+        }
+        return flatten(byDueMinute.subMap(fromKey, true, toKey, true));
+    }
+
+    /**
+     * Returns the deadlines that are not done and were due before the given time.
+     *
+     * @param now the current time
+     * @return overdue deadlines ordered by due time
+     */
+    public List<Deadline> overdue(LocalDateTime now) {
+        return flatten(pendingByDueMinute.headMap(DateTimes.toEpochMinute(now), false));
+    }
+
+    /**
+     * Returns up to {@code limit} deadlines that are not done and are due at or after the given time.
+     *
+     * @param from  inclusive lower bound
+     * @param limit maximum number of deadlines to return
+     * @return the soonest such deadlines ordered by due time
+     */
+    public List<Deadline> pendingFrom(LocalDateTime from, int limit) {
+        List<Deadline> result = new ArrayList<>();
+        for (List<Deadline> bucket : pendingByDueMinute.tailMap(DateTimes.toEpochMinute(from), true).values()) {
+            for (Deadline deadline : bucket) {
+                if (result.size() == limit) {
+                    return result;
+                }
+                result.add(deadline);
+            }
+        }
+        return result;
+    }
+
+    private static void put(TreeMap<Long, List<Deadline>> map, Deadline deadline) {
+        map.computeIfAbsent(DateTimes.toEpochMinute(deadline.getBy()), key -> new ArrayList<>(1)).add(deadline);
+    }
+
+    private static void remove(TreeMap<Long, List<Deadline>> map, Deadline deadline) {
+        Long key = DateTimes.toEpochMinute(deadline.getBy());
+        List<Deadline> bucket = map.get(key);
+        if (bucket != null) {
+            bucket.removeIf(entry -> entry == deadline);
+            if (bucket.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static List<Deadline> flatten(NavigableMap<Long, List<Deadline>> range) {
+        List<Deadline> result = new ArrayList<>();
+        for (List<Deadline> bucket : range.values()) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+}
@@ -10,7 +10,6 @@ public class Event extends Task {
 
     protected LocalDateTime from;
     protected LocalDateTime to;
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
     private static final DateTimeFormatter PRINT_FORMATTER = DateTimeFormatter.ofPattern("MMM d yyyy ha");
 
     /**
@@ -23,8 +22,8 @@ public class Event extends Task {
      */
     public Event(String description, String from, String to) {
         super(description);
-        this.from = LocalDateTime.parse(from, FORMATTER);
-        this.to = LocalDateTime.parse(to, FORMATTER);
+        this.from = DateTimes.parse(from);
+        this.to = DateTimes.parse(to);
     }
 
     /**
@@ -58,6 +57,11 @@ public class Event extends Task {
         return to;
     }
 
+    @Override
+    public Event copy() {
+        return copyStateTo(new Event(getDescription(), from, to));
+    }
+
     /**
      * Returns the formatted display string including start and end times.
      *
@@ -0,0 +1,269 @@
+package maybeweijun.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Interval tree over the {@link Event} tasks of a list.
+ *
+ * <p>Events are kept in a randomized balanced tree ordered by start time, and every node also records
+ * the latest end time in its subtree. A query skips any subtree whose latest end is not after the window
+ * start, and stops going right once start times reach the window end. Each result may cost its own
+ * descent, so stabbing and overlap queries visit O(k log n) nodes in the worst case for k results.
+ * Times are compared in epoch minutes.
+ *
+ * <p>Events that are not done are also kept in a second tree of the same shape, so
+ * {@link #pendingFrom(LocalDateTime, int)} never walks past completed ones.
+ *
+ * <p>An event occupies the half-open interval from its start up to, but not including, its end, so
+ * back-to-back events do not overlap. Results come out ordered by start time.
+ */
+public class EventIndex implements TaskIndex {
+    private Node root;
+    private Node pendingRoot;
+    private int size = 0;
+
+    @Override
+    public void onAdd(Task task) {
+        if (task instanceof Event) {
+            Event event = (Event) task;
+            root = insert(root, event);
+            size++;
+            if (!event.isDone()) {
+                pendingRoot = insert(pendingRoot, event);
+            }
+        }
+    }
+
+    @Override
+    public void onRemove(Task task) {
+        if (task instanceof Event) {
+            Event event = (Event) task;
+            Node[] removed = new Node[1];
+            root = delete(root, event, removed);
+            if (removed[0] != null) {
+                size--;
+            }
+            pendingRoot = delete(pendingRoot, event, removed);
+        }
+    }
+
+    @Override
+    public void onUpdate(Task task) {
+        if (task instanceof Event) {
+            Event event = (Event) task;
+            pendingRoot = delete(pendingRoot, event, new Node[1]);
+            if (!event.isDone()) {
+                pendingRoot = insert(pendingRoot, event);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of indexed events.
+     *
+     * @return current size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the events in progress at the given time: those starting at or before it and ending after it.
+     *
+     * @param time the time to look at
+     * @return matching events ordered by start time
+     */
+    public List<Event> at(LocalDateTime time) {
+        long minute = DateTimes.toEpochMinute(time);
+        return overlapping(minute, minute + 1);
+    }
+
+    /**
+     * Returns the events that overlap the window from {@code from} up to {@code to}.
+     *
+     * @param from window start, inclusive
+     * @param to   window end, exclusive
+     * @return matching events ordered by start time, empty if the window is empty
+     */
+    public List<Event> overlapping(LocalDateTime from, LocalDateTime to) {
+        return overlapping(DateTimes.toEpochMinute(from), DateTimes.toEpochMinute(to));
+    }
+
+    /**
+     * Returns up to {@code limit} events that are not done and have not ended by the given time, ordered
+     * by start time. Events already in progress come first.
+     *
+     * <p>The walk runs over the tree of events that are not done, and every event it reports counts
+     * towards the limit, so it stops after O(limit log n) steps however many completed events there are.
+     *
+     * @param from  the current time
+     * @param limit maximum number of events to return
+     * @return the earliest such events
+     */
+    public List<Event> pendingFrom(LocalDateTime from, int limit) {
+        List<Event> result = new ArrayList<>();
+        if (limit > 0) {
+            visit(pendingRoot, DateTimes.toEpochMinute(from), Long.MAX_VALUE, node -> {
+                result.add(node.event);
+                return result.size() < limit;
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Returns the earliest gaps of at least {@code minutes} minutes between the events overlapping the
+     * window from {@code from} up to {@code to}. The overlapping events already come out of the tree in
+     * start order, so the gaps are found in one sweep that stops as soon as {@code limit} are found.
+     *
+     * @param from    window start, inclusive
+     * @param to      window end, exclusive
+     * @param minutes minimum gap length in minutes, at least 1
+     * @param limit   maximum number of gaps to return
+     * @return free slots ordered by start time
+     */
+    public List<TimeSlot> freeSlots(LocalDateTime from, LocalDateTime to, long minutes, int limit) {
+        assert minutes > 0 : "Gap length must be positive";
+        long windowStart = DateTimes.toEpochMinute(from);
+        long windowEnd = DateTimes.toEpochMinute(to);
+        List<TimeSlot> slots = new ArrayList<>();
+        long[] cursor = {windowStart};
+        if (windowStart < windowEnd) {
+            visit(root, windowStart, windowEnd, node -> {
+                if (node.start - cursor[0] >= minutes) {
+                    slots.add(slot(cursor[0], node.start));
+                }
+                cursor[0] = Math.max(cursor[0], node.end);
+                return slots.size() < limit;
+            });
+        }
+        if (slots.size() < limit && windowEnd - cursor[0] >= minutes) {
+            slots.add(slot(cursor[0], windowEnd));
+        }
+        return slots;
+    }
+
+    private List<Event> overlapping(long from, long to) {
+        List<Event> result = new ArrayList<>();
+        if (from < to) {
+            visit(root, from, to, node -> result.add(node.event));
+        }
+        return result;
+    }
+
+    private static TimeSlot slot(long start, long end) {
+        return new TimeSlot(DateTimes.fromEpochMinute(start), DateTimes.fromEpochMinute(end));
+    }
+
+    /**
+     * Passes the nodes overlapping the window to {@code visitor} in start order, until it returns false.
+     *
+     * @return false if the visitor asked to stop
+     */
+    private static boolean visit(Node node, long from, long to, Predicate<Node> visitor) {
+        if (node == null || node.maxEnd <= from) {
+            return true;
+        }
+        if (!visit(node.left, from, to, visitor)) {
+            return false;
+        }
+        if (node.start >= to) {
+            return true;
+        }
+        if (node.end > from && !visitor.test(node)) {
+            return false;
+        }
+        return visit(node.right, from, to, visitor);
+    }
+
+    private static Node insert(Node tree, Event event) {
+        Node node = new Node(event);
+        Node[] parts = split(tree, node.start, node.id);
+        return merge(merge(parts[0], node), parts[1]);
+    }
+
+    /**
+     * Removes the node for {@code event} from {@code tree}, storing it in {@code removed[0]} (null if absent).
+     */
+    private static Node delete(Node tree, Event event, Node[] removed) {
+        long start = DateTimes.toEpochMinute(event.getFrom());
+        Node[] outer = split(tree, start, event.getId());
+        Node[] inner = split(outer[1], start, event.getId() + 1);
+        removed[0] = inner[0];
+        return merge(outer[0], inner[1]);
+    }
+
+    private static long maxEndOf(Node node) {
+        return node == null ? Long.MIN_VALUE : node.maxEnd;
+    }
+
+    private static void update(Node node) {
+        node.maxEnd = Math.max(node.end, Math.max(maxEndOf(node.left), maxEndOf(node.right)));
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    /**
+     * Splits a tree into the nodes ordered before {@code (start, id)} and the rest.
+     */
+    private static Node[] split(Node node, long start, long id) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        boolean isBefore = node.start < start || (node.start == start && node.id < id);
+        Node[] parts;
+        if (isBefore) {
+            parts = split(node.right, start, id);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+        } else {
+            parts = split(node.left, start, id);
+            node.left = parts[1];
+            update(node);
+            parts[1] = node;
+        }
+        return parts;
+    }
+
+    /**
+     * Tree node holding one event and the latest end time in its subtree.
+     */
+    private static final class Node {
+        private final Event event;
+        private final long id;
+        private final long start;
+        private final long end;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(Event event) {
+            this.event = event;
+            this.id = event.getId();
+            this.start = DateTimes.toEpochMinute(event.getFrom());
+            this.end = DateTimes.toEpochMinute(event.getTo());
+            this.maxEnd = end;
+        }
+    }
+}
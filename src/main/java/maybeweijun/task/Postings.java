@@ -0,0 +1,122 @@
+package maybeweijun.task;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorted, growable array of task identifiers used as a posting list by the text indexes.
+ * Identifiers are handed out in increasing order, so adds almost always append.
+ */
+final class Postings {
+    private long[] ids = new long[2];
+    private int size = 0;
+
+    /**
+     * Returns the number of identifiers in the list.
+     *
+     * @return current size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds an identifier unless it is already present.
+     *
+     * @param id task identifier
+     * @return true if the identifier was added
+     */
+    boolean add(long id) {
+        int at = size > 0 && ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+        if (at >= 0 && at < size) {
+            return false;
+        }
+        int insertAt = at >= 0 ? at : -at - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes an identifier if present.
+     *
+     * @param id task identifier
+     * @return true if the identifier was removed
+     */
+    boolean remove(long id) {
+        int at = Arrays.binarySearch(ids, 0, size, id);
+        if (at < 0) {
+            return false;
+        }
+        System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns whether the identifier is present.
+     *
+     * @param id task identifier
+     * @return true if present
+     */
+    boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    /**
+     * Returns the identifiers present in every list, walking the shortest list and probing the others.
+     *
+     * @param lists posting lists, reordered by size as a side effect
+     * @return common identifiers in ascending order
+     */
+    static long[] intersect(List<Postings> lists) {
+        if (lists.isEmpty()) {
+            return new long[0];
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        Postings shortest = lists.get(0);
+        long[] result = new long[shortest.size];
+        int count = 0;
+        for (int i = 0; i < shortest.size; i++) {
+            long id = shortest.ids[i];
+            boolean isInAll = true;
+            for (int j = 1; j < lists.size() && isInAll; j++) {
+                isInAll = lists.get(j).contains(id);
+            }
+            if (isInAll) {
+                result[count++] = id;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Returns the identifiers present in either {@code sorted} or this list.
+     *
+     * @param sorted identifiers in ascending order
+     * @return merged identifiers in ascending order, without duplicates
+     */
+    long[] unionWith(long[] sorted) {
+        long[] merged = new long[sorted.length + size];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < sorted.length || j < size) {
+            long next;
+            if (j >= size || (i < sorted.length && sorted[i] < ids[j])) {
+                next = sorted[i++];
+            } else if (i >= sorted.length || ids[j] < sorted[i]) {
+                next = ids[j++];
+            } else {
+                next = sorted[i++];
+                j++;
+            }
+            merged[count++] = next;
+        }
+        return Arrays.copyOf(merged, count);
+    }
+}
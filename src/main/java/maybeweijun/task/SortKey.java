@@ -0,0 +1,53 @@
+package maybeweijun.task;
+
+/**
+ * One field of a multi-key sort, with its direction.
+ */
+public final class SortKey {
+    /**
+     * Task fields that can be sorted on.
+     */
+    public enum Field {
+        /** Task type: todos, then deadlines, then events. */
+        TYPE,
+        /** Deadline due time or event start; todos have no date and always sort last. */
+        DATE,
+        /** Description, ignoring case. */
+        DESCRIPTION,
+        /** Completion status: not done before done. */
+        STATUS
+    }
+
+    private final Field field;
+    private final boolean isDescending;
+
+    /**
+     * Creates a sort key.
+     *
+     * @param field        field to sort on
+     * @param isDescending whether to reverse the natural order of the field
+     */
+    public SortKey(Field field, boolean isDescending) {
+        assert field != null : "Field must not be null";
+        this.field = field;
+        this.isDescending = isDescending;
+    }
+
+    /**
+     * Returns the field to sort on.
+     *
+     * @return sort field
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Returns whether the natural order of the field is reversed.
+     *
+     * @return true if descending
+     */
+    public boolean isDescending() {
+        return isDescending;
+    }
+}
@@ -1,11 +1,18 @@
 package maybeweijun.task;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Serves as the base class for all task types, encapsulating a description and completion status.
  */
 public class Task {
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id = NEXT_ID.getAndIncrement();
     private String description;
     private boolean isDone;
+    private String rendered;
+    private String lowercased;
 
     /**
      * Creates a task with the specified description. Newly created tasks are not done.
@@ -22,6 +29,7 @@ public class Task {
      */
     public void mark() {
         this.isDone = true;
+        this.rendered = null;
     }
 
     /**
@@ -29,6 +37,7 @@ public class Task {
      */
     public void unmark() {
         this.isDone = false;
+        this.rendered = null;
     }
 
     /**
@@ -40,6 +49,16 @@ public class Task {
         return isDone;
     }
 
+    /**
+     * Returns the identifier of this task. Identifiers are assigned on construction, are unique within
+     * the running program, and do not change when other tasks are added or removed. They are not saved.
+     *
+     * @return task identifier
+     */
+    public long getId() {
+        return id;
+    }
+
     /**
      * Returns the description of this task.
      *
@@ -49,6 +68,58 @@ public class Task {
         return description;
     }
 
+    /**
+     * Returns the description in lower case, for case-insensitive matching. It is computed on first use
+     * and kept, so repeated searches do not lowercase the same description again.
+     *
+     * @return lowercased task description
+     */
+    public String getLowercaseDescription() {
+        if (lowercased == null) {
+            lowercased = description.toLowerCase();
+        }
+        return lowercased;
+    }
+
+    /**
+     * Returns a new task with the same description and completion status. The copy has its own
+     * identifier, and changing either task does not affect the other.
+     *
+     * @return an independent copy of this task
+     */
+    public Task copy() {
+        return copyStateTo(new Task(description));
+    }
+
+    /**
+     * Copies the completion status of this task to {@code copy}, for use by {@link #copy()}.
+     *
+     * @param copy a new task with the same description
+     * @return {@code copy}
+     */
+    protected <T extends Task> T copyStateTo(T copy) {
+        if (isDone) {
+            copy.mark();
+        }
+        return copy;
+    }
+
+    /**
+     * Appends the display line of this task, as returned by {@link #toString()}, to {@code out}.
+     *
+     * <p>The line is built once and kept until the task is marked or unmarked, so listing an unchanged
+     * task again only copies characters instead of formatting its dates.
+     *
+     * @param out the builder to append to
+     * @return {@code out}, for chaining
+     */
+    public StringBuilder renderTo(StringBuilder out) {
+        if (rendered == null) {
+            rendered = toString();
+        }
+        return out.append(rendered);
+    }
+
     /**
      * Returns a simple string representation including completion state and description.
      *
@@ -0,0 +1,34 @@
+package maybeweijun.task;
+
+/**
+ * Secondary index over the tasks of a {@link TaskList}, kept up to date as the list changes.
+ *
+ * <p>An index is registered with {@link TaskList#attach(TaskIndex)}, which first reports every task
+ * already in the list through {@link #onAdd(Task)}. Afterwards the list reports each add, remove and
+ * status change as it happens, so an index never needs to rescan the list.
+ */
+public interface TaskIndex {
+
+    /**
+     * Called after a task is added to the list.
+     *
+     * @param task the added task
+     */
+    void onAdd(Task task);
+
+    /**
+     * Called after a task is removed from the list.
+     *
+     * @param task the removed task
+     */
+    void onRemove(Task task);
+
+    /**
+     * Called after a task in the list is marked or unmarked. Indexes that do not depend on the
+     * completion status can ignore this.
+     *
+     * @param task the changed task
+     */
+    default void onUpdate(Task task) {
+    }
+}
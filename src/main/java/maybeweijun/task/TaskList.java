@@ -1,32 +1,49 @@
 package maybeweijun.task;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Encapsulates an ordered list of tasks, exposing only operations needed for application logic.
+ *
+ * <p>Tasks are kept in a randomized balanced tree ordered by position, where every node knows the size
+ * of its subtree. Finding, removing or marking the task at a position therefore takes logarithmic time
+ * instead of shifting the tail of an array. A hash index from {@link Task#getId()} to tree node gives
+ * constant-time lookup by identifier, and walking from that node to the root recovers its position.
  */
 public class TaskList {
-    private final ArrayList<Task> tasks;
+    private final HashMap<Long, Node> byId = new HashMap<>();
+    private final ArrayList<TaskMutation> pendingMutations = new ArrayList<>();
+    private final ArrayList<TaskIndex> indexes = new ArrayList<>();
+    private Node root;
+    private WordIndex wordIndex;
+    private TrigramIndex trigramIndex;
+    private DeadlineIndex deadlineIndex;
+    private EventIndex eventIndex;
+    private CategoryIndex categoryIndex;
+    private long trigramBudgetBytes = TrigramIndex.DEFAULT_MAX_BYTES;
 
     /**
      * Creates an empty TaskList.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
     }
 
     /**
      * Creates a TaskList initialized with the given tasks.
-     * The provided list is copied into an internal ArrayList.
+     * The provided tasks are copied into the list in order.
      *
      * @param initial the initial tasks to populate, may be null
      */
-    public TaskList(List<Task> initial) {
-        if (initial == null) {
-            this.tasks = new ArrayList<>();
-        } else {
-            this.tasks = new ArrayList<>(initial);
+    public TaskList(List<? extends Task> initial) {
+        if (initial != null) {
+            build(initial);
         }
     }
 
@@ -36,7 +53,7 @@ public class TaskList {
      * @return current size
      */
     public int size() {
-        return tasks.size();
+        return sizeOf(root);
     }
 
     /**
@@ -47,8 +64,29 @@ public class TaskList {
      * @throws IndexOutOfBoundsException if index is out of range
      */
     public Task get(int index) {
-        assert index >= 0 && index < tasks.size() : "Index out of bounds: " + index;
-        return tasks.get(index);
+        return checkedNodeAt(index).task;
+    }
+
+    /**
+     * Returns the task with the given identifier.
+     *
+     * @param id task identifier
+     * @return the task, or null if no task in this list has that identifier
+     */
+    public Task getById(long id) {
+        Node node = byId.get(id);
+        return node == null ? null : node.task;
+    }
+
+    /**
+     * Returns the current position of the task with the given identifier.
+     *
+     * @param id task identifier
+     * @return zero-based index, or -1 if no task in this list has that identifier
+     */
+    public int indexOfId(long id) {
+        Node node = byId.get(id);
+        return node == null ? -1 : positionOf(node);
     }
 
     /**
@@ -57,7 +95,11 @@ public class TaskList {
      * @param task the task to add
      */
     public void add(Task task) {
-        tasks.add(task);
+        append(task);
+        pendingMutations.add(TaskMutation.added(size() - 1, task));
+        for (TaskIndex index : indexes) {
+            index.onAdd(task);
+        }
     }
 
     /**
@@ -68,7 +110,207 @@ public class TaskList {
      * @throws IndexOutOfBoundsException if index is out of range
      */
     public Task remove(int index) {
-        return tasks.remove(index);
+        if (!isValidIndex(index)) {
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        }
+        Node[] outer = split(root, index);
+        Node[] inner = split(outer[1], 1);
+        root = merge(outer[0], inner[1]);
+        detachRoot();
+        Node removed = inner[0];
+        byId.remove(removed.task.getId(), removed);
+        pendingMutations.add(TaskMutation.deleted(index));
+        for (TaskIndex taskIndex : indexes) {
+            taskIndex.onRemove(removed.task);
+        }
+        return removed.task;
+    }
+
+    /**
+     * Removes and returns the task with the given identifier.
+     *
+     * @param id task identifier
+     * @return the removed task, or null if no task in this list has that identifier
+     */
+    public Task removeById(long id) {
+        int index = indexOfId(id);
+        return index < 0 ? null : remove(index);
+    }
+
+    /**
+     * Marks the task at the specified index as done.
+     *
+     * @param index zero-based index
+     * @return the marked task
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public Task mark(int index) {
+        Task task = checkedNodeAt(index).task;
+        task.mark();
+        pendingMutations.add(TaskMutation.marked(index));
+        notifyUpdate(task);
+        return task;
+    }
+
+    /**
+     * Marks the task at the specified index as not done.
+     *
+     * @param index zero-based index
+     * @return the unmarked task
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public Task unmark(int index) {
+        Task task = checkedNodeAt(index).task;
+        task.unmark();
+        pendingMutations.add(TaskMutation.unmarked(index));
+        notifyUpdate(task);
+        return task;
+    }
+
+    /**
+     * Registers an index that is kept in sync with this list from now on. Every task already in the
+     * list is reported to the index first.
+     *
+     * @param index the index to register
+     * @param <T>   type of the index
+     * @return the same index, for chaining
+     */
+    public <T extends TaskIndex> T attach(T index) {
+        assert index != null : "Index must not be null";
+        for (Task task : toList()) {
+            index.onAdd(task);
+        }
+        indexes.add(index);
+        return index;
+    }
+
+    /**
+     * Returns the word index over task descriptions, building it on first use.
+     *
+     * @return word index kept in sync with this list
+     */
+    public WordIndex getWordIndex() {
+        if (wordIndex == null) {
+            wordIndex = attach(new WordIndex());
+        }
+        return wordIndex;
+    }
+
+    /**
+     * Sets the memory budget of the trigram index. An index built under another budget is dropped and
+     * built again on next use.
+     *
+     * @param maxBytes memory budget in bytes
+     */
+    public void setTrigramBudget(long maxBytes) {
+        assert maxBytes >= 0 : "Budget must not be negative";
+        if (maxBytes != trigramBudgetBytes && trigramIndex != null) {
+            indexes.remove(trigramIndex);
+            trigramIndex = null;
+        }
+        trigramBudgetBytes = maxBytes;
+    }
+
+    /**
+     * Returns the trigram index over task descriptions, building it on first use with the budget set by
+     * {@link #setTrigramBudget(long)}. An index that gave up over budget is built again once enough tasks
+     * have been removed for it to fit.
+     *
+     * @return trigram index kept in sync with this list
+     */
+    public TrigramIndex getTrigramIndex() {
+        if (trigramIndex != null && trigramIndex.isWorthRebuilding()) {
+            indexes.remove(trigramIndex);
+            trigramIndex = null;
+        }
+        if (trigramIndex == null) {
+            trigramIndex = attach(new TrigramIndex(trigramBudgetBytes));
+        }
+        return trigramIndex;
+    }
+
+    /**
+     * Returns the due-time index over the deadlines in this list, building it on first use.
+     *
+     * @return deadline index kept in sync with this list
+     */
+    public DeadlineIndex getDeadlineIndex() {
+        if (deadlineIndex == null) {
+            deadlineIndex = attach(new DeadlineIndex());
+        }
+        return deadlineIndex;
+    }
+
+    /**
+     * Returns the interval index over the events in this list, building it on first use.
+     *
+     * @return event index kept in sync with this list
+     */
+    public EventIndex getEventIndex() {
+        if (eventIndex == null) {
+            eventIndex = attach(new EventIndex());
+        }
+        return eventIndex;
+    }
+
+    /**
+     * Returns the index that groups the tasks in this list by type, building it on first use.
+     *
+     * @return category index kept in sync with this list
+     */
+    public CategoryIndex getCategoryIndex() {
+        if (categoryIndex == null) {
+            categoryIndex = attach(new CategoryIndex());
+        }
+        return categoryIndex;
+    }
+
+    /**
+     * Looks up the tasks with the given identifiers and returns them in list order. Identifiers of
+     * tasks that are not in this list are skipped.
+     *
+     * @param ids task identifiers
+     * @return the matching tasks, ordered by position
+     */
+    public TaskList inListOrder(long[] ids) {
+        List<Node> nodes = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Node node = byId.get(id);
+            if (node != null) {
+                nodes.add(node);
+            }
+        }
+        long[] keyed = new long[nodes.size()];
+        for (int i = 0; i < keyed.length; i++) {
+            keyed[i] = ((long) positionOf(nodes.get(i)) << Integer.SIZE) | i;
+        }
+        Arrays.sort(keyed);
+        TaskList ordered = new TaskList();
+        for (long key : keyed) {
+            ordered.append(nodes.get((int) key).task);
+        }
+        return ordered;
+    }
+
+    /**
+     * Returns whether the list has changed since mutations were last drained.
+     *
+     * @return true if there are unsaved mutations; false otherwise
+     */
+    public boolean isDirty() {
+        return !pendingMutations.isEmpty();
+    }
+
+    /**
+     * Returns the mutations applied since the previous call and clears the pending record.
+     * Tasks supplied through the constructor are not reported as mutations.
+     *
+     * @return mutations in the order they were applied, possibly empty
+     */
+    public List<TaskMutation> drainMutations() {
+        List<TaskMutation> drained = new ArrayList<>(pendingMutations);
+        pendingMutations.clear();
+        return drained;
     }
 
     /**
@@ -78,16 +320,229 @@ public class TaskList {
      * @return true if valid; false otherwise
      */
     public boolean isValidIndex(int idx) {
-        return idx >= 0 && idx < tasks.size();
+        return idx >= 0 && idx < size();
     }
 
     /**
-     * Returns the underlying list view, primarily for persistence operations.
-     * Callers should avoid mutating the returned list directly outside this class.
+     * Returns a read-only live view of the list, primarily for persistence operations.
+     * Positional access takes logarithmic time; iteration walks the tree in order.
      *
-     * @return the backing list of tasks
+     * @return view of the tasks in list order
      */
     public List<Task> toList() {
-        return tasks;
+        return new AbstractList<Task>() {
+            @Override
+            public Task get(int index) {
+                return checkedNodeAt(index).task;
+            }
+
+            @Override
+            public int size() {
+                return TaskList.this.size();
+            }
+
+            @Override
+            public Iterator<Task> iterator() {
+                return new Iterator<Task>() {
+                    private Node next = first(root);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override
+                    public Task next() {
+                        if (next == null) {
+                            throw new NoSuchElementException();
+                        }
+                        Task task = next.task;
+                        next = successor(next);
+                        return task;
+                    }
+                };
+            }
+        };
+    }
+
+    private void append(Task task) {
+        assert task != null : "Task must not be null";
+        Node node = new Node(task);
+        byId.put(task.getId(), node);
+        root = merge(root, node);
+        detachRoot();
+    }
+
+    /**
+     * Builds the tree for an empty list in linear time. Nodes arrive in list order, so each one becomes
+     * the right end of the tree: it pops the nodes of lower priority off the right spine as its left
+     * subtree and hangs off the last remaining one.
+     */
+    private void build(List<? extends Task> initial) {
+        ArrayList<Node> spine = new ArrayList<>();
+        for (Task task : initial) {
+            assert task != null : "Task must not be null";
+            Node node = new Node(task);
+            byId.put(task.getId(), node);
+            Node last = null;
+            while (!spine.isEmpty() && spine.get(spine.size() - 1).priority < node.priority) {
+                last = spine.remove(spine.size() - 1);
+            }
+            node.left = last;
+            if (!spine.isEmpty()) {
+                spine.get(spine.size() - 1).right = node;
+            }
+            spine.add(node);
+        }
+        root = spine.isEmpty() ? null : spine.get(0);
+        fixSizes(root);
+        detachRoot();
+    }
+
+    private static void fixSizes(Node node) {
+        if (node != null) {
+            fixSizes(node.left);
+            fixSizes(node.right);
+            update(node);
+        }
+    }
+
+    private void notifyUpdate(Task task) {
+        for (TaskIndex index : indexes) {
+            index.onUpdate(task);
+        }
+    }
+
+    private void detachRoot() {
+        if (root != null) {
+            root.parent = null;
+        }
+    }
+
+    private Node checkedNodeAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index out of bounds: " + index);
+        }
+        return nodeAt(index);
+    }
+
+    private Node nodeAt(int index) {
+        Node node = root;
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    private static int positionOf(Node node) {
+        int index = sizeOf(node.left);
+        while (node.parent != null) {
+            if (node == node.parent.right) {
+                index += sizeOf(node.parent.left) + 1;
+            }
+            node = node.parent;
+        }
+        return index;
+    }
+
+    private static Node first(Node node) {
+        while (node != null && node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private static Node successor(Node node) {
+        if (node.right != null) {
+            return first(node.right);
+        }
+        while (node.parent != null && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    private static int sizeOf(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + sizeOf(node.left) + sizeOf(node.right);
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+    }
+
+    /**
+     * Joins two trees, keeping every node of {@code a} before every node of {@code b}.
+     */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    /**
+     * Splits a tree into its first {@code count} nodes and the rest.
+     */
+    private static Node[] split(Node node, int count) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        Node[] parts;
+        if (sizeOf(node.left) >= count) {
+            parts = split(node.left, count);
+            node.left = parts[1];
+            update(node);
+            parts[1] = node;
+        } else {
+            parts = split(node.right, count - sizeOf(node.left) - 1);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+        }
+        for (Node part : parts) {
+            if (part != null) {
+                part.parent = null;
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Tree node holding one task and the size of its subtree.
+     */
+    private static final class Node {
+        private final Task task;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node left;
+        private Node right;
+        private Node parent;
+
+        private Node(Task task) {
+            this.task = task;
+        }
     }
 }
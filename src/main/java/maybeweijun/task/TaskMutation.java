@@ -0,0 +1,136 @@
+package maybeweijun.task;
+
+import java.util.List;
+
+/**
+ * Describes a single change applied to a {@link TaskList}, so that persistence layers can
+ * replay the change instead of rewriting the whole list.
+ *
+ * <p>A mutation never refers to a caller's task: an added task is copied when the mutation is
+ * created, and {@link #applyTo(List)} replaces a marked or unmarked task with an updated copy rather
+ * than changing it. A mutation can therefore be replayed on another thread while the caller keeps
+ * changing its own tasks.
+ */
+public final class TaskMutation {
+
+    /**
+     * Kinds of change a {@link TaskList} can undergo.
+     */
+    public enum Kind {
+        ADD, MARK, UNMARK, DELETE
+    }
+
+    private final Kind kind;
+    private final int index;
+    private final Task task;
+
+    private TaskMutation(Kind kind, int index, Task task) {
+        this.kind = kind;
+        this.index = index;
+        this.task = task;
+    }
+
+    /**
+     * Creates a mutation recording that a task was appended at the given index. The task's current
+     * state is copied.
+     *
+     * @param index zero-based index of the new task
+     * @param task  the task that was added
+     * @return the mutation
+     */
+    public static TaskMutation added(int index, Task task) {
+        assert task != null : "Added task must not be null";
+        return new TaskMutation(Kind.ADD, index, task.copy());
+    }
+
+    /**
+     * Creates a mutation recording that the task at the given index was marked as done.
+     *
+     * @param index zero-based index of the task
+     * @return the mutation
+     */
+    public static TaskMutation marked(int index) {
+        return new TaskMutation(Kind.MARK, index, null);
+    }
+
+    /**
+     * Creates a mutation recording that the task at the given index was marked as not done.
+     *
+     * @param index zero-based index of the task
+     * @return the mutation
+     */
+    public static TaskMutation unmarked(int index) {
+        return new TaskMutation(Kind.UNMARK, index, null);
+    }
+
+    /**
+     * Creates a mutation recording that the task at the given index was removed.
+     *
+     * @param index zero-based index the task occupied before removal
+     * @return the mutation
+     */
+    public static TaskMutation deleted(int index) {
+        return new TaskMutation(Kind.DELETE, index, null);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the added task for {@link Kind#ADD} mutations, as it was when the mutation was created.
+     * The returned task must not be changed.
+     *
+     * @return copy of the added task, or null for other kinds
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Applies this mutation to a plain list of tasks, ignoring indices that are out of range. Tasks
+     * in the list are replaced rather than changed, so they may be shared with other lists.
+     *
+     * @param tasks the list to update
+     * @return true if the mutation could be applied; false if it was skipped
+     */
+    public boolean applyTo(List<Task> tasks) {
+        switch (kind) {
+            case ADD:
+                tasks.add(task);
+                return true;
+            case MARK:
+                if (!isInRange(tasks)) {
+                    return false;
+                }
+                Task marked = tasks.get(index).copy();
+                marked.mark();
+                tasks.set(index, marked);
+                return true;
+            case UNMARK:
+                if (!isInRange(tasks)) {
+                    return false;
+                }
+                Task unmarked = tasks.get(index).copy();
+                unmarked.unmark();
+                tasks.set(index, unmarked);
+                return true;
+            case DELETE:
+                if (!isInRange(tasks)) {
+                    return false;
+                }
+                tasks.remove(index);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean isInRange(List<Task> tasks) {
+        return index >= 0 && index < tasks.size();
+    }
+}
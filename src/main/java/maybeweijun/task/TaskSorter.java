@@ -0,0 +1,173 @@
+package maybeweijun.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sorts tasks on several keys without comparing tasks to each other.
+ *
+ * <p>Each key is first turned into a small non-negative {@code long} rank per task, computed once: the
+ * type or status as is, dates as an offset in minutes from the earliest date, and descriptions as their
+ * position among the distinct lowercased descriptions. The tasks are then ordered with a least-significant
+ * key first radix sort: one stable counting sort per 16-bit digit of each key, from the last key to the
+ * first. Low-cardinality keys such as type and status need a single counting pass, and ties keep list
+ * order.
+ */
+public final class TaskSorter {
+    private static final int DIGIT_BITS = 16;
+    private static final int DIGIT_MASK = (1 << DIGIT_BITS) - 1;
+
+    private TaskSorter() {
+    }
+
+    /**
+     * Returns the tasks ordered by the given keys, the first key being the most significant.
+     *
+     * @param tasks tasks to sort, left unchanged
+     * @param keys  sort keys, most significant first
+     * @return a new list holding the tasks in sorted order
+     */
+    public static List<Task> sort(List<Task> tasks, List<SortKey> keys) {
+        Task[] items = tasks.toArray(new Task[0]);
+        int[] order = new int[items.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        for (int k = keys.size() - 1; k >= 0; k--) {
+            order = radixSort(order, ranks(items, keys.get(k)));
+        }
+        List<Task> sorted = new ArrayList<>(items.length);
+        for (int i : order) {
+            sorted.add(items[i]);
+        }
+        return sorted;
+    }
+
+    private static long[] ranks(Task[] items, SortKey key) {
+        long[] ranks;
+        switch (key.getField()) {
+            case TYPE:
+                ranks = new long[items.length];
+                for (int i = 0; i < items.length; i++) {
+                    ranks[i] = CategoryIndex.categoryOf(items[i]);
+                }
+                break;
+            case STATUS:
+                ranks = new long[items.length];
+                for (int i = 0; i < items.length; i++) {
+                    ranks[i] = items[i].isDone() ? 1 : 0;
+                }
+                break;
+            case DATE:
+                return dateRanks(items, key.isDescending());
+            default:
+                ranks = descriptionRanks(items);
+                break;
+        }
+        if (key.isDescending()) {
+            long max = 0;
+            for (long rank : ranks) {
+                max = Math.max(max, rank);
+            }
+            for (int i = 0; i < ranks.length; i++) {
+                ranks[i] = max - ranks[i];
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Ranks tasks by date, measured from the earliest (or, descending, the latest) date. Tasks without a
+     * date rank after every dated task in both directions.
+     */
+    private static long[] dateRanks(Task[] items, boolean isDescending) {
+        long[] minutes = new long[items.length];
+        boolean[] isDated = new boolean[items.length];
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] instanceof Deadline) {
+                minutes[i] = DateTimes.toEpochMinute(((Deadline) items[i]).getBy());
+                isDated[i] = true;
+            } else if (items[i] instanceof Event) {
+                minutes[i] = DateTimes.toEpochMinute(((Event) items[i]).getFrom());
+                isDated[i] = true;
+            }
+            if (isDated[i]) {
+                min = Math.min(min, minutes[i]);
+                max = Math.max(max, minutes[i]);
+            }
+        }
+        long[] ranks = new long[items.length];
+        for (int i = 0; i < items.length; i++) {
+            if (!isDated[i]) {
+                ranks[i] = max - min + 1;
+            } else {
+                ranks[i] = isDescending ? max - minutes[i] : minutes[i] - min;
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Ranks tasks by lowercased description. Each description is lowercased once, and only the distinct
+     * lowercased descriptions are sorted; equal descriptions share a rank.
+     */
+    private static long[] descriptionRanks(Task[] items) {
+        Map<String, Integer> slots = new HashMap<>();
+        int[] slotOf = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            Integer slot = slots.putIfAbsent(items[i].getDescription().toLowerCase(), slots.size());
+            slotOf[i] = slot == null ? slots.size() - 1 : slot;
+        }
+        String[] distinct = new String[slots.size()];
+        for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+            distinct[entry.getValue()] = entry.getKey();
+        }
+        String[] sorted = distinct.clone();
+        Arrays.sort(sorted);
+        for (int rank = 0; rank < sorted.length; rank++) {
+            slots.put(sorted[rank], rank);
+        }
+        long[] rankOfSlot = new long[distinct.length];
+        for (int slot = 0; slot < distinct.length; slot++) {
+            rankOfSlot[slot] = slots.get(distinct[slot]);
+        }
+        long[] ranks = new long[items.length];
+        for (int i = 0; i < items.length; i++) {
+            ranks[i] = rankOfSlot[slotOf[i]];
+        }
+        return ranks;
+    }
+
+    /**
+     * Stably reorders {@code order} by {@code ranks[order[i]]}, one 16-bit digit at a time.
+     */
+    private static int[] radixSort(int[] order, long[] ranks) {
+        long max = 0;
+        for (long rank : ranks) {
+            max = Math.max(max, rank);
+        }
+        int[] buffer = new int[order.length];
+        for (int shift = 0; shift < Long.SIZE && (max >>> shift) != 0; shift += DIGIT_BITS) {
+            int buckets = (int) Math.min(DIGIT_MASK, max >>> shift) + 2;
+            int[] starts = new int[buckets];
+            for (int i : order) {
+                starts[(int) ((ranks[i] >>> shift) & DIGIT_MASK) + 1]++;
+            }
+            for (int b = 1; b < buckets; b++) {
+                starts[b] += starts[b - 1];
+            }
+            for (int i : order) {
+                buffer[starts[(int) ((ranks[i] >>> shift) & DIGIT_MASK)]++] = i;
+            }
+            int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,55 @@
+package maybeweijun.task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable span of time from a start up to, but not including, an end.
+ */
+public class TimeSlot {
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    /**
+     * Creates a slot.
+     *
+     * @param start start of the slot, inclusive
+     * @param end   end of the slot, exclusive
+     */
+    public TimeSlot(LocalDateTime start, LocalDateTime end) {
+        assert !end.isBefore(start) : "Slot must not end before it starts";
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns the start of the slot.
+     *
+     * @return start, inclusive
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the end of the slot.
+     *
+     * @return end, exclusive
+     */
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the slot in the input datetime format with its length in minutes.
+     *
+     * @return formatted string, e.g. "2025-01-01 0900 to 2025-01-01 1030 (90 min)"
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        DateTimes.formatTo(start, sb).append(" to ");
+        DateTimes.formatTo(end, sb).append(" (").append(Duration.between(start, end).toMinutes()).append(" min)");
+        return sb.toString();
+    }
+}
@@ -14,6 +14,11 @@ public class Todo extends Task {
         super(description);
     }
 
+    @Override
+    public Todo copy() {
+        return copyStateTo(new Todo(getDescription()));
+    }
+
     /**
      * Returns the string representation of this todo, prefixed with {@code [T]},
      * followed by the generic {@link Task} representation which includes completion
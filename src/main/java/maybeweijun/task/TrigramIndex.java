@@ -0,0 +1,156 @@
+package maybeweijun.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Index from every three-character sequence of the lowercased task descriptions to the tasks containing it.
+ *
+ * <p>A description that contains a keyword also contains every trigram of that keyword, so intersecting
+ * the keyword's trigram posting lists gives a small superset of the matches. {@link #candidates(String)}
+ * returns that superset; callers confirm each candidate with the same case-insensitive substring test a
+ * full scan would use, which keeps results identical to the scan.
+ *
+ * <p>The index has a memory budget. Once its estimated size would exceed the budget it drops all
+ * postings and stops indexing, and {@link #candidates(String)} returns null so callers fall back to
+ * scanning. It keeps counting the postings it would hold, so that {@link #isWorthRebuilding()} can
+ * tell the owner when enough tasks have been removed for a fresh index to fit again.
+ */
+public class TrigramIndex implements TaskIndex {
+    /** Default budget, in bytes. */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final int GRAM_LENGTH = 3;
+    private static final int BYTES_PER_POSTING = Long.BYTES;
+    private static final int BYTES_PER_GRAM = 96;
+
+    private final HashMap<Long, Postings> postings = new HashMap<>();
+    private final long maxBytes;
+    private long estimatedBytes = 0;
+    private long postingBytes = 0;
+    private long postingBytesAtOverflow = 0;
+    private boolean isOverBudget = false;
+
+    /**
+     * Creates an index with the default memory budget.
+     */
+    public TrigramIndex() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates an index that gives up once its estimated size exceeds {@code maxBytes}.
+     *
+     * @param maxBytes memory budget in bytes
+     */
+    public TrigramIndex(long maxBytes) {
+        assert maxBytes >= 0 : "Budget must not be negative";
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public void onAdd(Task task) {
+        if (isOverBudget) {
+            postingBytes += (long) grams(task.getLowercaseDescription()).length * BYTES_PER_POSTING;
+            return;
+        }
+        for (long gram : grams(task.getLowercaseDescription())) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                list = new Postings();
+                postings.put(gram, list);
+                estimatedBytes += BYTES_PER_GRAM;
+            }
+            if (list.add(task.getId())) {
+                estimatedBytes += BYTES_PER_POSTING;
+                postingBytes += BYTES_PER_POSTING;
+            }
+        }
+        if (estimatedBytes > maxBytes) {
+            isOverBudget = true;
+            postingBytesAtOverflow = postingBytes;
+            postings.clear();
+            estimatedBytes = 0;
+        }
+    }
+
+    @Override
+    public void onRemove(Task task) {
+        if (isOverBudget) {
+            postingBytes -= (long) grams(task.getLowercaseDescription()).length * BYTES_PER_POSTING;
+            return;
+        }
+        for (long gram : grams(task.getLowercaseDescription())) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(task.getId())) {
+                estimatedBytes -= BYTES_PER_POSTING;
+                postingBytes -= BYTES_PER_POSTING;
+                if (list.size() == 0) {
+                    postings.remove(gram);
+                    estimatedBytes -= BYTES_PER_GRAM;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the index exceeded its budget and no longer answers queries.
+     *
+     * @return true if over budget
+     */
+    public boolean isOverBudget() {
+        return isOverBudget;
+    }
+
+    /**
+     * Returns whether the index is over budget but the indexed text has since shrunk to half of what it
+     * was when the budget was exceeded, so that a new index over the same tasks is likely to fit.
+     *
+     * @return true if a rebuild is worth trying
+     */
+    public boolean isWorthRebuilding() {
+        return isOverBudget && postingBytes <= postingBytesAtOverflow / 2;
+    }
+
+    /**
+     * Returns the identifiers of the tasks that may contain the keyword.
+     *
+     * @param needle lowercased keyword
+     * @return candidate identifiers in ascending order, or null if the index cannot narrow the search
+     *         because the keyword is shorter than three characters or the index is over budget
+     */
+    public long[] candidates(String needle) {
+        if (isOverBudget || needle.length() < GRAM_LENGTH) {
+            return null;
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (long gram : grams(needle)) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        return Postings.intersect(lists);
+    }
+
+    /**
+     * Returns the distinct trigrams of the text, each packed as three 16-bit characters.
+     */
+    private static long[] grams(String text) {
+        int count = Math.max(0, text.length() - GRAM_LENGTH + 1);
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+}
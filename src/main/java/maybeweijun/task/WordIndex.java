@@ -0,0 +1,96 @@
+package maybeweijun.task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Inverted index from the words of task descriptions to the identifiers of the tasks that contain them.
+ *
+ * <p>A word is a maximal run of letters and digits, compared without regard to case. Every word maps to
+ * a posting list of task identifiers kept in ascending order, so a query only touches the posting lists
+ * of its own words: {@link #findAll(List)} intersects them, starting from the shortest, and
+ * {@link #findAny(List)} merges them.
+ */
+public class WordIndex implements TaskIndex {
+    private final HashMap<String, Postings> postings = new HashMap<>();
+
+    @Override
+    public void onAdd(Task task) {
+        for (String word : tokenize(task.getDescription())) {
+            postings.computeIfAbsent(word, key -> new Postings()).add(task.getId());
+        }
+    }
+
+    @Override
+    public void onRemove(Task task) {
+        for (String word : tokenize(task.getDescription())) {
+            Postings list = postings.get(word);
+            if (list != null) {
+                list.remove(task.getId());
+                if (list.size() == 0) {
+                    postings.remove(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the identifiers of the tasks whose descriptions contain every one of the given words.
+     *
+     * @param words lowercase words, as produced by {@link #tokenize(String)}
+     * @return matching identifiers in ascending order
+     */
+    public long[] findAll(List<String> words) {
+        List<Postings> lists = new ArrayList<>();
+        for (String word : words) {
+            Postings list = postings.get(word);
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        return Postings.intersect(lists);
+    }
+
+    /**
+     * Returns the identifiers of the tasks whose descriptions contain at least one of the given words.
+     *
+     * @param words lowercase words, as produced by {@link #tokenize(String)}
+     * @return matching identifiers in ascending order, without duplicates
+     */
+    public long[] findAny(List<String> words) {
+        long[] result = new long[0];
+        for (String word : words) {
+            Postings list = postings.get(word);
+            if (list != null) {
+                result = list.unionWith(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits text into lowercase words. Repeated words are returned once.
+     *
+     * @param text text to split
+     * @return distinct words in order of first appearance
+     */
+    public static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                String token = word.toString();
+                if (!words.contains(token)) {
+                    words.add(token);
+                }
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+}
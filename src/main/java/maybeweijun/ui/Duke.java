@@ -1,8 +1,13 @@
 package maybeweijun.ui;
 
 import maybeweijun.parser.Parser;
+import maybeweijun.storage.AsyncStorageWriter;
+import maybeweijun.storage.DurabilityPolicy;
 import maybeweijun.storage.Storage;
+import maybeweijun.storage.StorageBackend;
+import maybeweijun.storage.TaskArchive;
 import maybeweijun.task.TaskList;
+import maybeweijun.task.TrigramIndex;
 import java.io.File;
 import java.io.IOException;
 
@@ -11,15 +16,56 @@ import java.io.IOException;
  */
 public class Duke {
     private static final String DEFAULT_FILE_PATH = "data/state.txt";
+    private static final String DEFAULT_ARCHIVE_PATH = "data/state.txt.archive.gz";
+    private static final long JOURNAL_COMPACTION_THRESHOLD_BYTES = 1 << 20;
+    private static final long MAX_WRITE_DELAY_MILLIS = 50;
+    private static final long FSYNC_PERIOD_MILLIS = 1000;
 
 
-    private final Storage storage;
+    private final StorageBackend storage;
+    private final AsyncStorageWriter writer;
+    private final TaskArchive archive;
     private final TaskList tasks;
     private final GuiUi ui;
 
     private volatile boolean exitRequested = false;
+    private boolean isShutDown = false;
 
     public Duke() {
+        this(createDefaultStorage(), new TaskArchive(DEFAULT_ARCHIVE_PATH));
+    }
+
+    /**
+     * Creates a Duke that keeps its tasks in the given backend.
+     *
+     * @param storage backend to load tasks from and persist changes to
+     * @param archive archive that completed tasks are moved to
+     */
+    public Duke(StorageBackend storage, TaskArchive archive) {
+        this(storage, archive, TrigramIndex.DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a Duke that keeps its tasks in the given backend and caps the memory of the search index.
+     *
+     * @param storage            backend to load tasks from and persist changes to
+     * @param archive            archive that completed tasks are moved to
+     * @param trigramBudgetBytes memory budget of the trigram index used by {@code find}
+     */
+    public Duke(StorageBackend storage, TaskArchive archive, long trigramBudgetBytes) {
+        assert storage != null : "Storage must not be null";
+        this.storage = storage;
+        this.archive = archive;
+        this.tasks = new TaskList(storage.load());
+        tasks.setTrigramBudget(trigramBudgetBytes);
+        this.writer = new AsyncStorageWriter(storage, tasks.toList(), MAX_WRITE_DELAY_MILLIS);
+        this.ui = new GuiUi();
+    }
+
+    /**
+     * Returns the default text-file backend with a journal, creating its data file if needed.
+     */
+    private static StorageBackend createDefaultStorage() {
         // Ensure the "data" folder and "state.txt" file exist before using Storage.
         File file = new File(DEFAULT_FILE_PATH);
         File parent = file.getParentFile();
@@ -35,9 +81,10 @@ public class Duke {
             // Optionally log the exception here.
         }
 
-        this.storage = new Storage(DEFAULT_FILE_PATH);
-        this.tasks = new TaskList(storage.load());
-        this.ui = new GuiUi();
+        Storage storage = new Storage(DEFAULT_FILE_PATH);
+        storage.enableJournal(JOURNAL_COMPACTION_THRESHOLD_BYTES);
+        storage.setDurabilityPolicy(DurabilityPolicy.PERIODIC, FSYNC_PERIOD_MILLIS);
+        return storage;
     }
 
     /**
@@ -50,7 +97,8 @@ public class Duke {
 
     /**
      * Processes user input via Parser and returns the message(s) to show in the GUI.
-     * Also persists state after each command and tracks exit requests.
+     * Changes made by the command, if any, are handed to the background writer; read-only and
+     * rejected commands cause no I/O. Pending writes are flushed when exit is requested.
      */
     public String getResponse(String input) {
         assert ui != null : "Ui must be initialized";
@@ -58,17 +106,34 @@ public class Duke {
         assert tasks != null : "TaskList must be initialized";
         ui.clear();
         try {
-            boolean shouldExit = Parser.process(input, tasks, ui);
-            storage.save(tasks.toList());
+            boolean shouldExit = Parser.process(input, tasks, ui, archive);
             if (shouldExit) {
                 exitRequested = true;
             }
         } catch (Exception e) {
             ui.printError(e.getMessage());
+        } finally {
+            if (tasks.isDirty()) {
+                writer.submit(tasks.drainMutations());
+            }
+        }
+        if (exitRequested) {
+            shutdown();
         }
         return ui.consume();
     }
 
+    /**
+     * Writes any pending changes and stops background persistence. Safe to call more than once.
+     */
+    public synchronized void shutdown() {
+        if (isShutDown) {
+            return;
+        }
+        isShutDown = true;
+        writer.close();
+    }
+
     /**
      * Indicates whether the user has requested to exit (e.g., "bye").
      */
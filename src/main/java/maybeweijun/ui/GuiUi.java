@@ -1,7 +1,11 @@
 package maybeweijun.ui;
 
+import java.util.List;
+
+import maybeweijun.task.Event;
 import maybeweijun.task.Task;
 import maybeweijun.task.TaskList;
+import maybeweijun.task.TimeSlot;
 
 /**
  * Collects output into an internal buffer for GUI display instead of printing to the console.
@@ -22,9 +26,7 @@ public class GuiUi extends Ui {
     @Override
     public void printTaskList(TaskList tasks) {
         buffer.append("-----------\n");
-        for (int i = 0; i < tasks.size(); i++) {
-            buffer.append(i + 1).append(". ").append(tasks.get(i)).append('\n');
-        }
+        appendNumbered(buffer, tasks);
         buffer.append("-----------\n\n");
     }
 
@@ -64,6 +66,40 @@ public class GuiUi extends Ui {
     }
 
 
+    @Override
+    public void printArchived(int archivedCount, int remainingCount) {
+        buffer.append("Archived ")
+              .append(archivedCount)
+              .append(" completed tasks.\n")
+              .append("Now you have ")
+              .append(remainingCount)
+              .append(" tasks in the list.\n");
+    }
+
+    @Override
+    public void printConflicts(Event event, List<Event> conflicts) {
+        buffer.append("Heads up: ")
+              .append(event)
+              .append(" overlaps ")
+              .append(conflicts.size())
+              .append(" existing event(s):\n");
+        for (int i = 0; i < conflicts.size(); i++) {
+            buffer.append(i + 1).append(". ").append(conflicts.get(i)).append('\n');
+        }
+    }
+
+    @Override
+    public void printFreeSlots(List<TimeSlot> slots) {
+        if (slots.isEmpty()) {
+            buffer.append("No free slot found.\n");
+            return;
+        }
+        buffer.append("Free slots:\n");
+        for (int i = 0; i < slots.size(); i++) {
+            buffer.append(i + 1).append(". ").append(slots.get(i)).append('\n');
+        }
+    }
+
     @Override
     public void printError(String message) {
         buffer.append(message).append('\n');
@@ -38,4 +38,9 @@ public class MaybeWeijun extends Application {
             e.printStackTrace();
         }
     }
+
+    @Override
+    public void stop() {
+        duke.shutdown();
+    }
 }
\ No newline at end of file
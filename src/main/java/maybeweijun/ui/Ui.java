@@ -1,7 +1,11 @@
 package maybeweijun.ui;
 
+import java.util.List;
+
+import maybeweijun.task.Event;
 import maybeweijun.task.Task;
 import maybeweijun.task.TaskList;
+import maybeweijun.task.TimeSlot;
 
 /**
  * Provides user-facing console output and formatting for task operations and general prompts.
@@ -15,11 +19,9 @@ public class Ui {
      * @param tasks the current list of tasks
      */
     public void printTaskList(TaskList tasks) {
-        System.out.println("-----------");
-        for (int i = 0; i < tasks.size(); i++) {
-            System.out.println((i + 1) + ". " + tasks.get(i));
-        }
-        System.out.println("-----------\n");
+        StringBuilder sb = new StringBuilder("-----------\n");
+        appendNumbered(sb, tasks);
+        System.out.println(sb.append("-----------\n"));
     }
 
     /**
@@ -66,6 +68,60 @@ public class Ui {
     }
 
 
+    /**
+     * Prints feedback indicating completed tasks were moved to the archive.
+     *
+     * @param archivedCount  the number of tasks archived
+     * @param remainingCount the remaining number of tasks
+     */
+    public void printArchived(int archivedCount, int remainingCount) {
+        System.out.println("Archived " + archivedCount + " completed tasks.");
+        System.out.println("Now you have " + remainingCount + " tasks in the list.");
+    }
+
+    /**
+     * Prints the existing events that overlap a newly added or rejected event.
+     *
+     * @param event     the event being added
+     * @param conflicts the overlapping events, ordered by start time
+     */
+    public void printConflicts(Event event, List<Event> conflicts) {
+        System.out.println("Heads up: " + event + " overlaps " + conflicts.size() + " existing event(s):");
+        for (int i = 0; i < conflicts.size(); i++) {
+            System.out.println((i + 1) + ". " + conflicts.get(i));
+        }
+    }
+
+    /**
+     * Prints the free slots found by a {@code free} query.
+     *
+     * @param slots free slots ordered by start time, possibly empty
+     */
+    public void printFreeSlots(List<TimeSlot> slots) {
+        if (slots.isEmpty()) {
+            System.out.println("No free slot found.");
+            return;
+        }
+        System.out.println("Free slots:");
+        for (int i = 0; i < slots.size(); i++) {
+            System.out.println((i + 1) + ". " + slots.get(i));
+        }
+    }
+
+    /**
+     * Appends one numbered line per task, using each task's cached display line.
+     *
+     * @param out   the builder to append to
+     * @param tasks the tasks to list
+     */
+    protected static void appendNumbered(StringBuilder out, TaskList tasks) {
+        int number = 1;
+        for (Task task : tasks.toList()) {
+            out.append(number++).append(". ");
+            task.renderTo(out).append('\n');
+        }
+    }
+
     /**
      * Prints an error message.
      *
@@ -1,14 +1,21 @@
 package maybeweijun.parser;
 
 import maybeweijun.exception.maybeweijunException;
+import maybeweijun.storage.TaskArchive;
 import maybeweijun.task.Deadline;
 import maybeweijun.task.Event;
 import maybeweijun.task.Task;
 import maybeweijun.task.TaskList;
+import maybeweijun.task.TimeSlot;
 import maybeweijun.task.Todo;
 import maybeweijun.ui.Ui;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,6 +40,12 @@ class ParserTest {
         Task lastDeletedTask;
         int lastRemainingCount = -1;
 
+        int lastArchivedCount = -1;
+
+        List<Event> lastConflicts;
+
+        List<TimeSlot> lastFreeSlots;
+
         @Override
         public void printTaskList(TaskList tasks) {
             this.printedTaskList = true;
@@ -65,8 +78,27 @@ class ParserTest {
             this.lastDeletedTask = removedTask;
             this.lastRemainingCount = remainingCount;
         }
+
+        @Override
+        public void printArchived(int archivedCount, int remainingCount) {
+            this.lastArchivedCount = archivedCount;
+            this.lastRemainingCount = remainingCount;
+        }
+
+        @Override
+        public void printConflicts(Event event, List<Event> conflicts) {
+            this.lastConflicts = conflicts;
+        }
+
+        @Override
+        public void printFreeSlots(List<TimeSlot> slots) {
+            this.lastFreeSlots = slots;
+        }
     }
 
+    @TempDir
+    Path tempDir;
+
     private TaskList tasks;
     private FakeUi ui;
 
@@ -252,9 +284,312 @@ class ParserTest {
                 () -> Parser.process("unknown", tasks, ui));
     }
 
+    @Test
+    void process_commandWordPrefix_throwsInvalidCommand() {
+        assertThrows(maybeweijunException.InvalidCommandException.class,
+                () -> Parser.process("todoread book", tasks, ui));
+        assertThrows(maybeweijunException.InvalidCommandException.class,
+                () -> Parser.process("list all", tasks, ui));
+        assertEquals(0, tasks.size());
+    }
+
+    @Test
+    void process_commandWord_caseInsensitive() throws Exception {
+        Parser.process("TODO read book", tasks, ui);
+        assertEquals("read book", ui.lastAddedTask.getDescription());
+        assertTrue(Parser.process("Bye", tasks, ui));
+    }
+
+    @Test
+    void register_customCommand_dispatchedByFirstWord() throws Exception {
+        Parser.register("clear", arguments -> new Command() {
+            @Override
+            public void execute(TaskList list, Ui out, TaskArchive archive) {
+                while (list.size() > 0) {
+                    list.remove(0);
+                }
+            }
+
+            @Override
+            public boolean isExit() {
+                return arguments.trim().equals("quit");
+            }
+        });
+        try {
+            tasks.add(new Todo("a"));
+            assertFalse(Parser.process("clear", tasks, ui));
+            assertEquals(0, tasks.size());
+            assertTrue(Parser.process("clear  quit", tasks, ui));
+        } finally {
+            Parser.unregister("clear");
+        }
+        assertThrows(maybeweijunException.InvalidCommandException.class,
+                () -> Parser.process("clear", tasks, ui));
+    }
+
+    @Test
+    void parse_doesNotTouchList() throws Exception {
+        Command command = Parser.parse("deadline report /by 2025-01-01 1800");
+        assertInstanceOf(Command.AddDeadline.class, command);
+        assertInstanceOf(Command.Mark.class, Parser.parse("mark 7"));
+        assertEquals(0, tasks.size());
+
+        command.execute(tasks, ui, null);
+        command.execute(tasks, ui, null);
+        assertEquals(2, tasks.size());
+        assertNotSame(tasks.get(0), tasks.get(1));
+    }
+
+    @Test
+    void parseAll_keepsOrderAndDefersErrors() throws Exception {
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            inputs.add(i == 500 ? "mark xyz" : "todo task " + i);
+        }
+        List<Command> commands = Parser.parseAll(inputs);
+        assertEquals(1000, commands.size());
+        assertInstanceOf(Command.Invalid.class, commands.get(500));
+
+        for (int i = 0; i < 500; i++) {
+            commands.get(i).execute(tasks, ui, null);
+        }
+        assertThrows(maybeweijunException.InvalidMarkException.class,
+                () -> commands.get(500).execute(tasks, ui, null));
+        assertEquals(500, tasks.size());
+        assertEquals("task 499", tasks.get(499).getDescription());
+    }
+
     @Test
     void process_event_endBeforeStart_throwsInvalidDateRange() {
         assertThrows(maybeweijunException.InvalidDateRangeException.class,
                 () -> Parser.process("event bad /from 2025-01-01 1200 /to 2025-01-01 1100", tasks, ui));
     }
-}
\ No newline at end of file
+
+    @Test
+    void process_archive_movesOldDoneTasksAndFindsThem() throws Exception {
+        TaskArchive archive = new TaskArchive(tempDir.resolve("archive.gz").toString());
+        tasks.add(new Todo("done chore"));
+        tasks.add(new Deadline("old report", "2020-01-01 1200"));
+        tasks.add(new Deadline("recent report", "2999-01-01 1200"));
+        tasks.add(new Event("old talk", "2020-01-01 1000", "2020-01-01 1100"));
+        tasks.add(new Todo("open chore"));
+        for (int i = 0; i < 4; i++) {
+            tasks.mark(i);
+        }
+
+        assertFalse(Parser.process("archive 30", tasks, ui, archive));
+        assertEquals(2, ui.lastArchivedCount);
+        assertEquals("done chore", tasks.get(0).getDescription());
+
+        Parser.process("archive 30 /todos", tasks, ui, archive);
+        assertEquals(1, ui.lastArchivedCount);
+        assertEquals(2, tasks.size());
+        assertEquals("recent report", tasks.get(0).getDescription());
+        assertEquals("open chore", tasks.get(1).getDescription());
+
+        Parser.process("archive find REPORT", tasks, ui, archive);
+        assertEquals(1, ui.lastTaskList.size());
+        assertEquals("old report", ui.lastTaskList.get(0).getDescription());
+        assertTrue(ui.lastTaskList.drainMutations().isEmpty());
+    }
+
+    @Test
+    void process_archive_invalidArguments_throw() {
+        TaskArchive archive = new TaskArchive(tempDir.resolve("archive.gz").toString());
+        assertThrows(maybeweijunException.InvalidArchiveException.class,
+                () -> Parser.process("archive soon", tasks, ui, archive));
+        assertThrows(maybeweijunException.InvalidArchiveException.class,
+                () -> Parser.process("archive -1", tasks, ui, archive));
+        assertThrows(maybeweijunException.InvalidArchiveException.class,
+                () -> Parser.process("archive /todos", tasks, ui, archive));
+        assertThrows(maybeweijunException.EmptyFindException.class,
+                () -> Parser.process("archive find  ", tasks, ui, archive));
+        assertThrows(maybeweijunException.ArchiveUnavailableException.class,
+                () -> Parser.process("archive 1", tasks, ui));
+    }
+
+    @Test
+    void process_find_matchesAllWordsOrAnyWord() throws Exception {
+        tasks.add(new Todo("Read book"));
+        tasks.add(new Todo("return book to library"));
+        tasks.add(new Todo("read notes"));
+        tasks.add(new Todo("buy pen"));
+        tasks.remove(0);
+        tasks.add(new Todo("read the BOOK again"));
+
+        Parser.process("find /all book read", tasks, ui);
+        assertEquals(1, ui.lastTaskList.size());
+        assertEquals("read the BOOK again", ui.lastTaskList.get(0).getDescription());
+
+        Parser.process("find /any pen book", tasks, ui);
+        assertEquals(3, ui.lastTaskList.size());
+        assertEquals("return book to library", ui.lastTaskList.get(0).getDescription());
+        assertEquals("buy pen", ui.lastTaskList.get(1).getDescription());
+
+        assertThrows(maybeweijunException.EmptyFindException.class,
+                () -> Parser.process("find /any ", tasks, ui));
+    }
+
+    @Test
+    void process_find_plainQueryMatchesSubstrings() throws Exception {
+        tasks.add(new Todo("Read BOOK"));
+        tasks.add(new Todo("notebook"));
+        tasks.add(new Todo("buy pen"));
+
+        Parser.process("find ook", tasks, ui);
+        assertEquals(2, ui.lastTaskList.size());
+        assertSame(tasks.get(1), ui.lastTaskList.get(1));
+        // Results are wrapped once, not added one by one, so they log no mutations.
+        assertTrue(ui.lastTaskList.drainMutations().isEmpty());
+
+        Parser.process("find d b", tasks, ui);
+        assertEquals(1, ui.lastTaskList.size());
+
+        Parser.process("find e", tasks, ui);
+        assertEquals(3, ui.lastTaskList.size());
+    }
+
+    @Test
+    void process_dueAndOverdue_listDeadlinesByDueTime() throws Exception {
+        tasks.add(new Deadline("late", "2001-03-01 1200"));
+        tasks.add(new Todo("chores"));
+        tasks.add(new Deadline("early", "2001-01-01 0900"));
+        tasks.add(new Deadline("future", "2999-01-01 0000"));
+
+        Parser.process("due before 2001-03-01 1200", tasks, ui);
+        assertEquals(1, ui.lastTaskList.size());
+        assertEquals("early", ui.lastTaskList.get(0).getDescription());
+
+        Parser.process("due between 2001-01-01 0900 and 2001-03-01 1200", tasks, ui);
+        assertEquals(2, ui.lastTaskList.size());
+        assertEquals("late", ui.lastTaskList.get(1).getDescription());
+
+        Parser.process("mark 3", tasks, ui);
+        Parser.process("delete 1", tasks, ui);
+        Parser.process("overdue", tasks, ui);
+        assertEquals(0, ui.lastTaskList.size());
+    }
+
+    @Test
+    void process_due_invalidArguments_throw() {
+        tasks.add(new Deadline("d", "2001-01-01 0900"));
+        assertThrows(maybeweijunException.InvalidDueException.class,
+                () -> Parser.process("due soon", tasks, ui));
+        assertThrows(maybeweijunException.InvalidDueException.class,
+                () -> Parser.process("due between 2001-01-01 0900", tasks, ui));
+        assertThrows(maybeweijunException.InvalidDateTimeException.class,
+                () -> Parser.process("due before tomorrow", tasks, ui));
+        assertThrows(maybeweijunException.InvalidDateRangeException.class,
+                () -> Parser.process("due between 2001-01-02 0900 and 2001-01-01 0900", tasks, ui));
+    }
+
+    @Test
+    void process_atAndDuring_listOverlappingEvents() throws Exception {
+        tasks.add(new Event("long", "2025-01-01 0800", "2025-01-01 1800"));
+        tasks.add(new Event("morning", "2025-01-01 0900", "2025-01-01 1000"));
+        tasks.add(new Event("next", "2025-01-01 1000", "2025-01-01 1100"));
+
+        Parser.process("at 2025-01-01 1000", tasks, ui);
+        assertEquals(2, ui.lastTaskList.size());
+        assertEquals("next", ui.lastTaskList.get(1).getDescription());
+
+        Parser.process("during 2025-01-01 0930 /to 2025-01-01 1000", tasks, ui);
+        assertEquals(2, ui.lastTaskList.size());
+        assertEquals("morning", ui.lastTaskList.get(1).getDescription());
+
+        assertThrows(maybeweijunException.InvalidEventQueryException.class,
+                () -> Parser.process("during 2025-01-01 0930", tasks, ui));
+        assertThrows(maybeweijunException.InvalidDateRangeException.class,
+                () -> Parser.process("during 2025-01-01 0930 /to 2025-01-01 0930", tasks, ui));
+    }
+
+    @Test
+    void process_event_overlapping_reportsConflictsOrRejectsWhenStrict() throws Exception {
+        Parser.process("event a /from 2025-01-01 0900 /to 2025-01-01 1000", tasks, ui);
+        assertNull(ui.lastConflicts);
+
+        Parser.process("event b /from 2025-01-01 0930 /to 2025-01-01 1030", tasks, ui);
+        assertEquals(2, tasks.size());
+        assertEquals(1, ui.lastConflicts.size());
+        assertEquals("a", ui.lastConflicts.get(0).getDescription());
+
+        assertThrows(maybeweijunException.EventConflictException.class,
+                () -> Parser.process("event c /from 2025-01-01 0945 /to 2025-01-01 1100 /strict", tasks, ui));
+        assertEquals(2, tasks.size());
+        assertEquals(2, ui.lastConflicts.size());
+
+        Parser.process("event d /from 2025-01-01 1030 /to 2025-01-01 1100 /strict", tasks, ui);
+        assertEquals(3, tasks.size());
+        assertEquals("d", tasks.get(2).getDescription());
+    }
+
+    @Test
+    void process_free_findsEarliestGapsBetweenEvents() throws Exception {
+        tasks.add(new Event("a", "2025-01-01 0900", "2025-01-01 1000"));
+        tasks.add(new Event("b", "2025-01-01 0930", "2025-01-01 1100"));
+        tasks.add(new Event("c", "2025-01-01 1130", "2025-01-01 1200"));
+        tasks.add(new Deadline("d", "2025-01-01 1300"));
+
+        Parser.process("free 45m between 2025-01-01 0800 and 2025-01-01 1400", tasks, ui);
+        assertEquals(2, ui.lastFreeSlots.size());
+        assertEquals("2025-01-01 0800 to 2025-01-01 0900 (60 min)", ui.lastFreeSlots.get(0).toString());
+        assertEquals("2025-01-01 1200 to 2025-01-01 1400 (120 min)", ui.lastFreeSlots.get(1).toString());
+
+        Parser.process("free 1h between 2025-01-01 0930 and 2025-01-01 1200", tasks, ui);
+        assertTrue(ui.lastFreeSlots.isEmpty());
+
+        assertThrows(maybeweijunException.InvalidFreeException.class,
+                () -> Parser.process("free 0m between 2025-01-01 0800 and 2025-01-01 1400", tasks, ui));
+        assertThrows(maybeweijunException.InvalidFreeException.class,
+                () -> Parser.process("free soon between 2025-01-01 0800 and 2025-01-01 1400", tasks, ui));
+        assertThrows(maybeweijunException.InvalidFreeException.class,
+                () -> Parser.process("free 1h", tasks, ui));
+    }
+
+    @Test
+    void process_sortBy_ordersByKeysAndRejectsUnknownKeys() throws Exception {
+        tasks.add(new Todo("b"));
+        tasks.add(new Deadline("late", "2025-03-01 0900"));
+        tasks.add(new Event("early", "2025-01-01 0900", "2025-01-01 1000"));
+        tasks.add(new Todo("A"));
+        tasks.mark(0);
+
+        Parser.process("sort by status,date:desc", tasks, ui);
+        assertEquals("late", ui.lastTaskList.get(0).getDescription());
+        assertEquals("early", ui.lastTaskList.get(1).getDescription());
+        assertEquals("A", ui.lastTaskList.get(2).getDescription());
+        assertEquals("b", ui.lastTaskList.get(3).getDescription());
+
+        Parser.process("sort by type, desc", tasks, ui);
+        assertEquals("A", ui.lastTaskList.get(0).getDescription());
+        assertEquals("early", ui.lastTaskList.get(3).getDescription());
+
+        assertThrows(maybeweijunException.InvalidSortException.class,
+                () -> Parser.process("sort by size", tasks, ui));
+        assertThrows(maybeweijunException.InvalidSortException.class,
+                () -> Parser.process("sort type", tasks, ui));
+    }
+
+    @Test
+    void process_next_mergesUpcomingDeadlinesAndEvents() throws Exception {
+        tasks.add(new Deadline("past", "2001-01-01 0900"));
+        tasks.add(new Event("far event", "2999-01-03 0900", "2999-01-03 1000"));
+        tasks.add(new Deadline("far deadline", "2999-01-02 0900"));
+        tasks.add(new Todo("todo"));
+        tasks.add(new Event("done event", "2999-01-01 0900", "2999-01-01 1000"));
+        tasks.add(new Deadline("farthest", "2999-02-01 0900"));
+        tasks.mark(4);
+
+        Parser.process("next 2", tasks, ui);
+        assertEquals(2, ui.lastTaskList.size());
+        assertEquals("far deadline", ui.lastTaskList.get(0).getDescription());
+        assertEquals("far event", ui.lastTaskList.get(1).getDescription());
+
+        Parser.process("next 10", tasks, ui);
+        assertEquals(3, ui.lastTaskList.size());
+        assertTrue(ui.lastTaskList.drainMutations().isEmpty());
+
+        assertThrows(maybeweijunException.InvalidNextException.class, () -> Parser.process("next 0", tasks, ui));
+        assertThrows(maybeweijunException.InvalidNextException.class, () -> Parser.process("next", tasks, ui));
+    }
+}
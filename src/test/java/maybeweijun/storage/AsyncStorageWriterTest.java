@@ -0,0 +1,108 @@
+package maybeweijun.storage;
+
+import maybeweijun.task.Task;
+import maybeweijun.task.TaskList;
+import maybeweijun.task.TaskMutation;
+import maybeweijun.task.Todo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncStorageWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static class CountingStorage extends Storage {
+        int applyCalls = 0;
+
+        CountingStorage(String filePath) {
+            super(filePath);
+        }
+
+        @Override
+        public void apply(List<TaskMutation> mutations, List<Task> current) {
+            applyCalls++;
+            super.apply(mutations, current);
+        }
+    }
+
+    @Test
+    void submit_burstWithinDelay_isWrittenAsOneBatch() {
+        CountingStorage storage = new CountingStorage(tempDir.resolve("state.txt").toString());
+        AsyncStorageWriter writer = new AsyncStorageWriter(storage, new ArrayList<>(), 60_000);
+
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(new Todo("task " + i));
+            writer.submit(tasks.drainMutations());
+        }
+        writer.flush();
+
+        assertEquals(1, storage.applyCalls);
+        assertEquals(5, new Storage(tempDir.resolve("state.txt").toString()).load().size());
+        writer.close();
+    }
+
+    @Test
+    void close_flushesPendingMutations() {
+        Path file = tempDir.resolve("closed.txt");
+        Storage storage = new Storage(file.toString());
+        storage.enableJournal(1 << 20);
+        AsyncStorageWriter writer = new AsyncStorageWriter(storage, storage.load(), 60_000);
+
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("a"));
+        tasks.add(new Todo("b"));
+        tasks.mark(1);
+        writer.submit(tasks.drainMutations());
+        writer.close();
+
+        Storage reopened = new Storage(file.toString());
+        reopened.enableJournal(1 << 20);
+        List<Task> loaded = reopened.load();
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.get(1).isDone());
+    }
+
+    @Test
+    void flush_afterLiveUnmark_doesNotTouchLiveTasks() {
+        Path file = tempDir.resolve("interleaved.txt");
+        Storage storage = new Storage(file.toString());
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("a"));
+        AsyncStorageWriter writer = new AsyncStorageWriter(storage, tasks.toList(), 60_000);
+        tasks.drainMutations();
+
+        tasks.mark(0);
+        writer.submit(tasks.drainMutations());
+        tasks.unmark(0);
+        writer.flush();
+        assertFalse(tasks.get(0).isDone());
+        assertTrue(new Storage(file.toString()).load().get(0).isDone());
+
+        writer.submit(tasks.drainMutations());
+        tasks.mark(0);
+        writer.flush();
+        assertTrue(tasks.get(0).isDone());
+        assertFalse(new Storage(file.toString()).load().get(0).isDone());
+        writer.close();
+    }
+
+    @Test
+    void taskList_readOnlyAccess_isNotDirty() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("a"));
+        tasks.drainMutations();
+        tasks.get(0);
+        tasks.toList();
+        assertFalse(tasks.isDirty());
+        tasks.unmark(0);
+        assertTrue(tasks.isDirty());
+    }
+}
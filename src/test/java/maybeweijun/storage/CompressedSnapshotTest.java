@@ -0,0 +1,108 @@
+package maybeweijun.storage;
+
+import maybeweijun.task.Deadline;
+import maybeweijun.task.Event;
+import maybeweijun.task.Task;
+import maybeweijun.task.Todo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<Task> sample(int count) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+                case 0:
+                    tasks.add(new Todo("read chapter " + i));
+                    break;
+                case 1:
+                    tasks.add(new Deadline("submit \u00e9ssay " + i, "2025-02-0" + (i % 9 + 1) + " 2359"));
+                    break;
+                default:
+                    tasks.add(new Event("lecture " + i, "2025-03-01 1000", "2025-03-01 1200"));
+                    break;
+            }
+            if (i % 4 == 0) {
+                tasks.get(i).mark();
+            }
+        }
+        return tasks;
+    }
+
+    private static List<String> encodeAll(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task task : tasks) {
+            lines.add(Storage.encode(task));
+        }
+        return lines;
+    }
+
+    @Test
+    void writeThenRead_manyBlocks_roundTripsAndShrinks() throws Exception {
+        Path file = tempDir.resolve("state.dfl");
+        List<Task> tasks = sample(CompressedSnapshot.TASKS_PER_BLOCK * 3 + 17);
+        CompressedSnapshot.write(file, tasks, 9, false);
+
+        List<Task> loaded = new ArrayList<>();
+        assertEquals(9L, CompressedSnapshot.read(file, loaded));
+        assertEquals(encodeAll(tasks), encodeAll(loaded));
+
+        long textBytes = String.join("\n", encodeAll(tasks)).length();
+        assertTrue(Files.size(file) * 4 < textBytes);
+    }
+
+    @Test
+    void readRange_acrossBlockBoundary_returnsOnlyThatRange() throws Exception {
+        Path file = tempDir.resolve("state.dfl");
+        List<Task> tasks = sample(CompressedSnapshot.TASKS_PER_BLOCK * 2 + 5);
+        CompressedSnapshot.write(file, tasks, 0, false);
+
+        int from = CompressedSnapshot.TASKS_PER_BLOCK - 3;
+        List<Task> range = new ArrayList<>();
+        CompressedSnapshot.readRange(file, from, from + 10, range);
+        assertEquals(encodeAll(tasks.subList(from, from + 10)), encodeAll(range));
+
+        List<Task> tail = new ArrayList<>();
+        CompressedSnapshot.readRange(file, tasks.size() - 2, tasks.size() + 100, tail);
+        assertEquals(2, tail.size());
+    }
+
+    @Test
+    void storage_compressedFormat_migratesTextSnapshot() throws Exception {
+        Path text = tempDir.resolve("state.txt");
+        Files.write(text, List.of("T | 1 | a", "D | 0 | b | 2025-01-01 0900"));
+        Storage storage = new Storage(text.toString());
+        storage.setSnapshotFormat(SnapshotFormat.COMPRESSED);
+
+        assertEquals(2, storage.load().size());
+        assertTrue(Files.exists(storage.getCompressedPath()));
+        assertEquals("b", storage.loadRange(1, 5).get(0).getDescription());
+    }
+
+    @Test
+    void read_corruptBlock_leavesOutputUntouched() throws Exception {
+        Path file = tempDir.resolve("state.dfl");
+        CompressedSnapshot.write(file, sample(CompressedSnapshot.TASKS_PER_BLOCK * 2), 0, false);
+        byte[] bytes = Files.readAllBytes(file);
+        for (int i = 40; i < 80; i++) {
+            bytes[i] ^= 0x5A;
+        }
+        Files.write(file, bytes);
+
+        List<Task> out = new ArrayList<>();
+        assertThrows(IOException.class, () -> CompressedSnapshot.read(file, out));
+        assertTrue(out.isEmpty());
+    }
+}
@@ -0,0 +1,78 @@
+package maybeweijun.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import maybeweijun.task.Task;
+import maybeweijun.task.TaskList;
+import maybeweijun.task.Todo;
+
+/**
+ * Measures the cost of each {@link DurabilityPolicy} for full snapshot saves and journal appends.
+ *
+ * <p>Not a unit test; run manually, e.g. {@code java ... maybeweijun.storage.DurabilityBenchmark 10000 200}
+ * for 10,000 tasks per snapshot and 200 operations per policy.
+ */
+public class DurabilityBenchmark {
+    private static final int DEFAULT_TASKS = 10_000;
+    private static final int DEFAULT_OPERATIONS = 200;
+    private static final long PERIOD_MILLIS = 100;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional task count and operation count
+     */
+    public static void main(String[] args) throws IOException {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TASKS;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_OPERATIONS;
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < taskCount; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+
+        Path dir = Files.createTempDirectory("durability-bench");
+        try {
+            for (DurabilityPolicy policy : DurabilityPolicy.values()) {
+                double saveMillis = timeSaves(dir.resolve("save-" + policy + ".txt"), policy, tasks, operations);
+                double appendMillis = timeAppends(dir.resolve("journal-" + policy + ".txt"), policy, operations);
+                System.out.printf("%-10s full save (%,d tasks) %8.3f ms/op   journal append %8.3f ms/op%n",
+                        policy, taskCount, saveMillis, appendMillis);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static double timeSaves(Path file, DurabilityPolicy policy, List<Task> tasks, int operations) {
+        Storage storage = new Storage(file.toString());
+        storage.setDurabilityPolicy(policy, PERIOD_MILLIS);
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            storage.save(tasks);
+        }
+        return (System.nanoTime() - start) / 1e6 / operations;
+    }
+
+    private static double timeAppends(Path file, DurabilityPolicy policy, int operations) {
+        Storage storage = new Storage(file.toString());
+        storage.enableJournal(Long.MAX_VALUE);
+        storage.setDurabilityPolicy(policy, PERIOD_MILLIS);
+        TaskList list = new TaskList();
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            list.add(new Todo("task " + i));
+            storage.apply(list.drainMutations(), list.toList());
+        }
+        double perOperation = (System.nanoTime() - start) / 1e6 / operations;
+        storage.close();
+        return perOperation;
+    }
+}
@@ -0,0 +1,153 @@
+package maybeweijun.storage;
+
+import maybeweijun.task.Deadline;
+import maybeweijun.task.Task;
+import maybeweijun.task.TaskList;
+import maybeweijun.task.Todo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LsmStorageBackendTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<String> encodeAll(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task task : tasks) {
+            lines.add(Storage.encode(task));
+        }
+        return lines;
+    }
+
+    @Test
+    void apply_thenReopen_replaysLogOverSegments() {
+        String dir = tempDir.resolve("lsm").toString();
+        LsmStorageBackend backend = new LsmStorageBackend(dir, 4);
+        TaskList list = new TaskList(backend.load());
+        for (int i = 0; i < 10; i++) {
+            list.add(new Todo("task " + i));
+            backend.apply(list.drainMutations(), list.toList());
+        }
+        list.mark(2);
+        list.remove(0);
+        list.add(new Deadline("report", "2025-01-02 1230"));
+        list.remove(4);
+        backend.apply(list.drainMutations(), list.toList());
+        backend.close();
+
+        LsmStorageBackend reopened = new LsmStorageBackend(dir, 4);
+        List<Task> loaded = reopened.load();
+        assertEquals(encodeAll(list.toList()), encodeAll(loaded));
+
+        // Positions must still map to the right keys after a restart.
+        TaskList again = new TaskList(loaded);
+        again.unmark(1);
+        again.remove(0);
+        reopened.apply(again.drainMutations(), again.toList());
+        reopened.close();
+        assertEquals(encodeAll(again.toList()), encodeAll(new LsmStorageBackend(dir).load()));
+    }
+
+    @Test
+    void flushes_manySegments_areMergedInBackground() {
+        String dir = tempDir.resolve("lsm").toString();
+        LsmStorageBackend backend = new LsmStorageBackend(dir, 2);
+        TaskList list = new TaskList(backend.load());
+        for (int i = 0; i < 40; i++) {
+            list.add(new Todo("task " + i));
+            if (i % 3 == 0) {
+                list.remove(0);
+            }
+            backend.apply(list.drainMutations(), list.toList());
+        }
+        backend.close();
+
+        assertTrue(backend.getSegmentCount() < 40 / 2);
+        assertEquals(encodeAll(list.toList()), encodeAll(new LsmStorageBackend(dir).load()));
+    }
+
+    @Test
+    void apply_randomDeletesAcrossManyKeys_mapsPositionsToKeys() {
+        String dir = tempDir.resolve("lsm").toString();
+        LsmStorageBackend backend = new LsmStorageBackend(dir, 64);
+        TaskList list = new TaskList(backend.load());
+        Random random = new Random(8);
+        for (int i = 0; i < 2000; i++) {
+            int choice = random.nextInt(4);
+            if (list.size() > 0 && choice == 0) {
+                list.remove(random.nextInt(list.size()));
+            } else if (list.size() > 0 && choice == 1) {
+                list.mark(random.nextInt(list.size()));
+            } else {
+                list.add(new Todo("task " + i));
+            }
+            backend.apply(list.drainMutations(), list.toList());
+        }
+        backend.close();
+
+        assertEquals(encodeAll(list.toList()), encodeAll(new LsmStorageBackend(dir).load()));
+    }
+
+    @Test
+    void apply_periodicPolicy_forcesDeferredAppendWithoutFurtherWrites() throws Exception {
+        LsmStorageBackend backend = new LsmStorageBackend(tempDir.resolve("lsm").toString());
+        backend.setDurabilityPolicy(DurabilityPolicy.PERIODIC, 50);
+        TaskList list = new TaskList(backend.load());
+        list.add(new Todo("forced now"));
+        backend.apply(list.drainMutations(), list.toList());
+        list.add(new Todo("forced later"));
+        backend.apply(list.drainMutations(), list.toList());
+        assertEquals(1, backend.pendingForceCount());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (backend.pendingForceCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, backend.pendingForceCount());
+        backend.close();
+    }
+
+    @Test
+    void save_replacesEverything() {
+        String dir = tempDir.resolve("lsm").toString();
+        LsmStorageBackend backend = new LsmStorageBackend(dir, 2);
+        TaskList list = new TaskList(backend.load());
+        for (int i = 0; i < 5; i++) {
+            list.add(new Todo("old " + i));
+        }
+        backend.apply(list.drainMutations(), list.toList());
+
+        backend.save(List.of(new Todo("only")));
+        backend.close();
+
+        LsmStorageBackend reopened = new LsmStorageBackend(dir);
+        assertEquals(List.of("T | 0 | only"), encodeAll(reopened.load()));
+        assertEquals(1, reopened.getSegmentCount());
+    }
+
+    @Test
+    void save_whileMergeRuns_doesNotDeadlock() throws Exception {
+        String dir = tempDir.resolve("lsm").toString();
+        LsmStorageBackend backend = new LsmStorageBackend(dir, 1);
+        TaskList list = new TaskList(backend.load());
+        for (int i = 0; i < 400; i++) {
+            list.add(new Todo("task " + i));
+            backend.apply(list.drainMutations(), list.toList());
+        }
+
+        Thread saver = new Thread(() -> backend.save(list.toList()));
+        saver.start();
+        saver.join(30_000);
+        assertFalse(saver.isAlive(), "save blocked behind the merge");
+        backend.close();
+        assertEquals(encodeAll(list.toList()), encodeAll(new LsmStorageBackend(dir).load()));
+    }
+}
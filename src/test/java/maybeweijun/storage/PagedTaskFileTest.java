@@ -0,0 +1,137 @@
+package maybeweijun.storage;
+
+import maybeweijun.task.Deadline;
+import maybeweijun.task.Task;
+import maybeweijun.task.TaskList;
+import maybeweijun.task.Todo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedTaskFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<Task> todos(int count) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        return tasks;
+    }
+
+    private static List<String> encodeAll(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task task : tasks) {
+            lines.add(Storage.encode(task));
+        }
+        return lines;
+    }
+
+    private static void corruptFirstByte(Path data) throws IOException {
+        byte[] bytes = Files.readAllBytes(data);
+        bytes[0] ^= 1;
+        Files.write(data, bytes);
+    }
+
+    @Test
+    void apply_markOneTask_rewritesSinglePage() throws Exception {
+        PagedTaskFile file = new PagedTaskFile(tempDir.resolve("state").toString());
+        TaskList list = new TaskList(todos(PagedTaskFile.TASKS_PER_PAGE * 10));
+        file.rewrite(list.toList(), false);
+        long writesAfterRewrite = file.getPageWrites();
+
+        list.mark(PagedTaskFile.TASKS_PER_PAGE * 3 + 5);
+        file.apply(list.drainMutations(), list.toList(), false);
+
+        assertEquals(1, file.getPageWrites() - writesAfterRewrite);
+        List<Task> loaded = new PagedTaskFile(tempDir.resolve("state").toString()).readAll();
+        assertEquals(encodeAll(list.toList()), encodeAll(loaded));
+    }
+
+    @Test
+    void apply_addsDeletesAndGrowth_matchInMemoryList() throws Exception {
+        String base = tempDir.resolve("state").toString();
+        PagedTaskFile file = new PagedTaskFile(base);
+        TaskList list = new TaskList(todos(PagedTaskFile.TASKS_PER_PAGE + 3));
+        file.rewrite(list.toList(), false);
+
+        list.remove(0);
+        list.remove(PagedTaskFile.TASKS_PER_PAGE);
+        for (int i = 0; i < PagedTaskFile.TASKS_PER_PAGE + 1; i++) {
+            list.add(new Deadline("due " + i, "2025-03-0" + (i % 9 + 1) + " 1200"));
+        }
+        // A long description forces its page out of the original slots.
+        list.add(new Todo("long".repeat(2_000)));
+        list.mark(1);
+        file.apply(list.drainMutations(), list.toList(), false);
+
+        assertEquals(encodeAll(list.toList()), encodeAll(new PagedTaskFile(base).readAll()));
+    }
+
+    @Test
+    void apply_afterCorruptPageSkipped_refusesToWrite() throws Exception {
+        String base = tempDir.resolve("state").toString();
+        new PagedTaskFile(base).rewrite(todos(PagedTaskFile.TASKS_PER_PAGE + 10), false);
+        corruptFirstByte(tempDir.resolve("state.pages.0"));
+
+        PagedTaskFile file = new PagedTaskFile(base);
+        TaskList list = new TaskList(file.readAll());
+        assertEquals(10, list.size());
+        assertEquals(1, file.getUnreadablePages());
+
+        list.mark(0);
+        assertThrows(IOException.class, () -> file.apply(list.drainMutations(), list.toList(), false));
+        assertEquals(10, new PagedTaskFile(base).readAll().size());
+    }
+
+    @Test
+    void storage_corruptPage_rewritesAroundRecoveredTasks() throws Exception {
+        String base = tempDir.resolve("state").toString();
+        new PagedTaskFile(base).rewrite(todos(PagedTaskFile.TASKS_PER_PAGE + 10), false);
+        corruptFirstByte(tempDir.resolve("state.pages.0"));
+
+        Storage storage = new Storage(base + ".txt");
+        storage.setSnapshotFormat(SnapshotFormat.PAGED);
+        TaskList list = new TaskList(storage.load());
+        assertEquals(10, list.size());
+        assertEquals("task " + PagedTaskFile.TASKS_PER_PAGE, list.get(0).getDescription());
+
+        list.mark(0);
+        storage.apply(list.drainMutations(), list.toList());
+
+        PagedTaskFile reopened = new PagedTaskFile(base);
+        assertEquals(encodeAll(list.toList()), encodeAll(reopened.readAll()));
+        assertEquals(0, reopened.getUnreadablePages());
+    }
+
+    @Test
+    void storage_pagedFormat_migratesTextAndExportsBack() throws Exception {
+        Path text = tempDir.resolve("state.txt");
+        Files.write(text, List.of("T | 0 | a", "T | 1 | b", "D | 0 | c | 2025-01-01 0900"));
+        Storage storage = new Storage(text.toString());
+        storage.setSnapshotFormat(SnapshotFormat.PAGED);
+        TaskList list = new TaskList(storage.load());
+        assertTrue(Files.exists(tempDir.resolve("state.pages")));
+
+        list.mark(0);
+        list.remove(1);
+        storage.apply(list.drainMutations(), list.toList());
+
+        Storage reopened = new Storage(text.toString());
+        reopened.setSnapshotFormat(SnapshotFormat.PAGED);
+        assertEquals(encodeAll(list.toList()), encodeAll(reopened.load()));
+
+        Path exported = tempDir.resolve("export.txt");
+        reopened.exportText(exported);
+        assertEquals(encodeAll(list.toList()), Files.readAllLines(exported));
+    }
+}
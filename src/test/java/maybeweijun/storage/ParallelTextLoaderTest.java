@@ -0,0 +1,64 @@
+package maybeweijun.storage;
+
+import maybeweijun.task.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelTextLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void load_smallChunks_matchesSequentialScanInOrder() throws Exception {
+        StringBuilder text = new StringBuilder("# seq 7\n");
+        for (int i = 0; i < 500; i++) {
+            switch (i % 4) {
+                case 0:
+                    text.append("T | 1 | caf\u00e9 ").append(i).append('\n');
+                    break;
+                case 1:
+                    text.append("D | 0 | report ").append(i).append(" | 2025-01-02 1230\n");
+                    break;
+                case 2:
+                    text.append("E | 0 | meet ").append(i).append(" | 2025-01-03 0900 to 2025-01-03 1000\n");
+                    break;
+                default:
+                    text.append("D | 0 | malformed ").append(i).append('\n');
+                    break;
+            }
+        }
+        Path file = tempDir.resolve("chunked.txt");
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<Task> sequential = new ArrayList<>();
+        TaskLineScanner.scan(new StringReader(text.toString()), sequential);
+        List<Task> parallel = new ArrayList<>();
+        long sequence = ParallelTextLoader.load(file, parallel, 64);
+
+        assertEquals(7L, sequence);
+        assertEquals(375, parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(Storage.encode(sequential.get(i)), Storage.encode(parallel.get(i)));
+        }
+    }
+
+    @Test
+    void load_noTrailingNewline_keepsLastLine() throws Exception {
+        Path file = tempDir.resolve("tail.txt");
+        Files.write(file, "T | 0 | a\nT | 0 | b".getBytes(StandardCharsets.UTF_8));
+        List<Task> parallel = new ArrayList<>();
+        ParallelTextLoader.load(file, parallel, 1);
+        assertEquals(2, parallel.size());
+        assertEquals("b", parallel.get(1).getDescription());
+    }
+}
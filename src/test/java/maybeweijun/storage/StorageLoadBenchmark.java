@@ -0,0 +1,107 @@
+package maybeweijun.storage;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import maybeweijun.task.Task;
+
+/**
+ * Compares the split-based line decoder with {@link TaskLineScanner} on a generated state file.
+ *
+ * <p>Not a unit test; run manually, e.g. {@code java ... maybeweijun.storage.StorageLoadBenchmark 1000000}.
+ * Reports lines per second and bytes allocated per line on the loading thread.
+ */
+public class StorageLoadBenchmark {
+    private static final int DEFAULT_LINES = 500_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional number of lines to generate
+     */
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        Path file = Files.createTempFile("state-bench", ".txt");
+        try {
+            Files.write(file, generateLines(lines), StandardCharsets.UTF_8);
+            run("split (legacy)", file, lines, true);
+            run("scanner", file, lines, false);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void run(String name, Path file, int lines, boolean isLegacy) throws IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            load(file, isLegacy);
+        }
+        long bestNanos = Long.MAX_VALUE;
+        long allocated = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            int loaded = load(file, isLegacy);
+            long elapsed = System.nanoTime() - start;
+            allocated = Math.min(allocated, allocatedBytes() - allocatedBefore);
+            bestNanos = Math.min(bestNanos, elapsed);
+            assert loaded == lines : "Benchmark file did not load completely";
+        }
+        System.out.printf("%-16s %,14.0f lines/s %,10.1f bytes/line%n",
+                name, lines / (bestNanos / 1e9), (double) allocated / lines);
+    }
+
+    private static int load(Path file, boolean isLegacy) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        if (isLegacy) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file.toFile()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Task task = Storage.decode(line);
+                    if (task != null) {
+                        tasks.add(task);
+                    }
+                }
+            }
+        } else {
+            try (FileReader reader = new FileReader(file.toFile())) {
+                TaskLineScanner.scan(reader, tasks);
+            }
+        }
+        return tasks.size();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static List<String> generateLines(int count) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int day = 1 + i % 28;
+            String date = String.format("2025-%02d-%02d %02d00", 1 + i % 12, day, i % 24);
+            switch (i % 3) {
+                case 0:
+                    lines.add("T | " + (i % 2) + " | read book " + i);
+                    break;
+                case 1:
+                    lines.add("D | " + (i % 2) + " | submit report " + i + " | " + date);
+                    break;
+                default:
+                    lines.add("E | " + (i % 2) + " | project meeting " + i + " | " + date + " to "
+                            + String.format("2025-%02d-%02d 2300", 1 + i % 12, day));
+                    break;
+            }
+        }
+        return lines;
+    }
+}
@@ -4,6 +4,8 @@ import maybeweijun.exception.maybeweijunException;
 import maybeweijun.task.Deadline;
 import maybeweijun.task.Event;
 import maybeweijun.task.Task;
+import maybeweijun.task.TaskList;
+import maybeweijun.task.TaskMutation;
 import maybeweijun.task.Todo;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -119,5 +121,162 @@ class StorageTest {
         assertEquals("deadline ok", loaded.get(2).getDescription());
     }
 
+    @Test
+    void journal_applyThenLoad_replaysMutations() throws Exception {
+        Path file = tempDir.resolve("journaled.txt");
+        Storage storage = new Storage(file.toString());
+        storage.enableJournal(1 << 20);
+
+        TaskList tasks = new TaskList(storage.load());
+        tasks.add(new Todo("a"));
+        tasks.add(new Deadline("b", "2025-01-02 1230"));
+        tasks.add(new Todo("c"));
+        storage.apply(tasks.drainMutations(), tasks.toList());
+        tasks.mark(1);
+        tasks.remove(0);
+        storage.apply(tasks.drainMutations(), tasks.toList());
+        storage.close();
+
+        assertFalse(Files.exists(file), "snapshot should not be rewritten below the threshold");
+
+        Storage reopened = new Storage(file.toString());
+        reopened.enableJournal(1 << 20);
+        List<Task> loaded = reopened.load();
+        assertEquals(2, loaded.size());
+        assertEquals("b", loaded.get(0).getDescription());
+        assertTrue(loaded.get(0).isDone());
+        assertEquals("c", loaded.get(1).getDescription());
+    }
+
+    @Test
+    void journal_compactionPastThreshold_keepsLaterRecords() throws Exception {
+        Path file = tempDir.resolve("compacted.txt");
+        Storage storage = new Storage(file.toString());
+        storage.enableJournal(1);
+
+        TaskList tasks = new TaskList(storage.load());
+        tasks.add(new Todo("first"));
+        storage.apply(tasks.drainMutations(), tasks.toList());
+        tasks.add(new Todo("second"));
+        tasks.mark(0);
+        storage.apply(tasks.drainMutations(), tasks.toList());
+        storage.close();
+
+        assertTrue(Files.exists(file));
+        Storage reopened = new Storage(file.toString());
+        reopened.enableJournal(1);
+        List<Task> loaded = reopened.load();
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.get(0).isDone());
+        assertEquals("second", loaded.get(1).getDescription());
+    }
+
+    @Test
+    void journal_nonAsciiRecords_sizeCountsEncodedBytes() throws Exception {
+        Path file = tempDir.resolve("unicode.txt");
+        Journal journal = new Journal(file.toString());
+        journal.append(List.of(TaskMutation.added(0, new Todo("caf\u00e9 \u65e5\u672c\u8a9e"))), false);
+        journal.append(List.of(TaskMutation.marked(0)), false);
+        journal.close();
+
+        assertEquals(Files.size(tempDir.resolve("unicode.txt.journal")), journal.size());
+    }
+
+    @Test
+    void apply_withoutJournal_savesOnlyWhenMutated() throws Exception {
+        Path file = tempDir.resolve("plain.txt");
+        Storage storage = new Storage(file.toString());
+        storage.apply(new ArrayList<>(), new ArrayList<>());
+        assertFalse(Files.exists(file));
+
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("hello"));
+        storage.apply(tasks.drainMutations(), tasks.toList());
+        assertEquals(List.of("T | 0 | hello"), Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void binary_saveAndLoad_roundTrip() throws Exception {
+        Path file = tempDir.resolve("binary.txt");
+        Storage storage = new Storage(file.toString());
+        storage.setSnapshotFormat(SnapshotFormat.BINARY);
 
-}
\ No newline at end of file
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("caf\u00e9 run"));
+        Deadline deadline = new Deadline("report", "2025-01-02 1230");
+        deadline.mark();
+        tasks.add(deadline);
+        tasks.add(new Event("meeting", "2025-01-03 0900", "2025-01-03 1000"));
+        storage.save(tasks);
+
+        assertEquals(tempDir.resolve("binary.bin"), storage.getBinaryPath());
+        assertFalse(Files.exists(file));
+
+        Storage reopened = new Storage(file.toString());
+        reopened.setSnapshotFormat(SnapshotFormat.BINARY);
+        List<Task> loaded = reopened.load();
+        assertEquals(3, loaded.size());
+        assertEquals("caf\u00e9 run", loaded.get(0).getDescription());
+        assertTrue(loaded.get(1).isDone());
+        assertEquals(LocalDateTime.parse("2025-01-02 1230", FORMATTER), ((Deadline) loaded.get(1)).getBy());
+        assertEquals(LocalDateTime.parse("2025-01-03 1000", FORMATTER), ((Event) loaded.get(2)).getTo());
+    }
+
+    @Test
+    void binary_load_migratesExistingTextSnapshot() throws Exception {
+        Path file = tempDir.resolve("legacy.txt");
+        Files.write(file, List.of("T | 1 | old todo", "D | 0 | old deadline | 2025-02-03 1800"),
+                StandardCharsets.UTF_8);
+
+        Storage storage = new Storage(file.toString());
+        storage.setSnapshotFormat(SnapshotFormat.BINARY);
+        assertEquals(2, storage.load().size());
+        assertTrue(Files.exists(storage.getBinaryPath()));
+
+        Files.delete(file);
+        Storage reopened = new Storage(file.toString());
+        reopened.setSnapshotFormat(SnapshotFormat.BINARY);
+        List<Task> loaded = reopened.load();
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.get(0).isDone());
+        assertEquals("old deadline", loaded.get(1).getDescription());
+    }
+
+    @Test
+    void save_everySavePolicy_replacesFileWithoutLeavingTempFile() throws Exception {
+        Path file = tempDir.resolve("durable.txt");
+        Storage storage = new Storage(file.toString());
+        storage.setDurabilityPolicy(DurabilityPolicy.EVERY_SAVE, 0);
+
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("first"));
+        storage.save(tasks);
+        tasks.add(new Todo("second"));
+        storage.save(tasks);
+
+        assertEquals(List.of("T | 0 | first", "T | 0 | second"), Files.readAllLines(file, StandardCharsets.UTF_8));
+        assertFalse(Files.exists(tempDir.resolve("durable.txt.tmp")));
+    }
+
+    @Test
+    void apply_periodicPolicy_forcesDeferredAppendWithoutFurtherWrites() throws Exception {
+        Storage storage = new Storage(tempDir.resolve("periodic.txt").toString());
+        storage.enableJournal(1 << 20);
+        storage.setDurabilityPolicy(DurabilityPolicy.PERIODIC, 50);
+        storage.load();
+
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("forced now"));
+        storage.apply(tasks.drainMutations(), tasks.toList());
+        tasks.add(new Todo("forced later"));
+        storage.apply(tasks.drainMutations(), tasks.toList());
+        assertEquals(1, storage.pendingForceCount());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (storage.pendingForceCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, storage.pendingForceCount());
+        storage.close();
+    }
+}
@@ -0,0 +1,39 @@
+package maybeweijun.storage;
+
+import maybeweijun.task.Task;
+import maybeweijun.task.Todo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void append_severalTimes_findSeesEveryMember() throws Exception {
+        TaskArchive archive = new TaskArchive(tempDir.resolve("archive.gz").toString());
+        Todo first = new Todo("pay rent");
+        first.mark();
+        archive.append(List.of(first, new Todo("water plants")));
+        archive.append(List.of(new Todo("Pay tax")));
+
+        List<Task> found = new ArrayList<>();
+        assertEquals(2, archive.find("pay", found::add));
+        assertEquals("pay rent", found.get(0).getDescription());
+        assertTrue(found.get(0).isDone());
+        assertEquals("Pay tax", found.get(1).getDescription());
+    }
+
+    @Test
+    void find_missingArchive_findsNothing() throws Exception {
+        TaskArchive archive = new TaskArchive(tempDir.resolve("none.gz").toString());
+        assertEquals(0, archive.find("x", task -> fail()));
+    }
+}
@@ -0,0 +1,67 @@
+package maybeweijun.storage;
+
+import maybeweijun.task.Task;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskLineScannerTest {
+
+    private static final List<String> EDGE_LINES = List.of(
+            "T | 1 | read book",
+            "T|0|no spaces",
+            "T | 1 |",
+            "T | 1 | ",
+            "T | 1 || trailing field",
+            "D | 0 | leap day | 2024-02-29 1200",
+            "D | 0 | clamped day | 2023-02-31 1200",
+            "D | 0 | midnight rollover | 2024-01-01 2400",
+            "D | 0 | year zero | 0000-01-01 1200",
+            "D | 0 | padded |  2024-01-01 1200 ",
+            "D | 0 | short month | 2024-1-01 1200",
+            "E | 1 | meeting | 2024-01-01 1200 to 2024-01-01 1300",
+            "E | 1 | no end | 2024-01-01 1200 to ",
+            "E | 1 | glued | 2024-01-01 1200to 2024-01-01 1300",
+            "E | 0 | extra | 2024-01-01 1200 to 2024-01-01 1300 | ignored",
+            "X | 1 | unknown type",
+            "TT | 1 | long type"
+    );
+
+    @Test
+    void scan_edgeCases_matchReferenceDecoder() throws Exception {
+        for (String line : EDGE_LINES) {
+            Task expected = Storage.decode(line);
+            List<Task> scanned = new ArrayList<>();
+            TaskLineScanner.scan(new StringReader(line), scanned);
+            if (expected == null) {
+                assertTrue(scanned.isEmpty(), line);
+            } else {
+                assertEquals(1, scanned.size(), line);
+                assertEquals(Storage.encode(expected), Storage.encode(scanned.get(0)), line);
+            }
+        }
+    }
+
+    @Test
+    void scan_mixedLineEndingsAndHeader_readsAllLines() throws Exception {
+        String text = "# seq 42\r\nT | 0 | a\rT | 1 | b\n\nD | 0 | c | 2025-01-01 0900";
+        List<Task> scanned = new ArrayList<>();
+        long sequence = TaskLineScanner.scan(new StringReader(text), scanned);
+        assertEquals(42L, sequence);
+        assertEquals(3, scanned.size());
+        assertEquals("c", scanned.get(2).getDescription());
+    }
+
+    @Test
+    void scan_lineLongerThanBuffer_isNotSplit() throws Exception {
+        String description = "x".repeat(200_000);
+        List<Task> scanned = new ArrayList<>();
+        TaskLineScanner.scan(new StringReader("T | 0 | " + description + "\nT | 0 | y\n"), scanned);
+        assertEquals(2, scanned.size());
+        assertEquals(description, scanned.get(0).getDescription());
+    }
+}
@@ -0,0 +1,31 @@
+package maybeweijun.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryIndexTest {
+
+    @Test
+    void sorted_groupsByTypeInListOrderAndIsCachedUntilChanged() {
+        Task event = new Event("e", "2025-01-01 0900", "2025-01-01 1000");
+        Task deadline = new Deadline("d", "2025-01-01 0900");
+        Task first = new Todo("first");
+        Task second = new Todo("second");
+        TaskList list = new TaskList(List.of(event, first, deadline));
+        CategoryIndex index = list.getCategoryIndex();
+        list.add(second);
+
+        TaskList sorted = index.sorted();
+        assertEquals(List.of(first, second, deadline, event), new ArrayList<>(sorted.toList()));
+        list.mark(0);
+        assertSame(sorted, index.sorted());
+
+        list.remove(1);
+        assertNotSame(sorted, index.sorted());
+        assertEquals(List.of(second, deadline, event), new ArrayList<>(index.sorted().toList()));
+    }
+}
@@ -0,0 +1,74 @@
+package maybeweijun.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the retained heap of an {@code ArrayList<Task>} with a {@link ColumnarTaskList}.
+ *
+ * <p>Not a unit test; run manually with a large heap, e.g.
+ * {@code java -Xmx4g ... maybeweijun.task.ColumnarFootprintBenchmark 1000000}.
+ * Both lists share the same description strings, so the numbers compare only the per-task overhead.
+ */
+public class ColumnarFootprintBenchmark {
+    private static final int DEFAULT_TASKS = 1_000_000;
+    private static final int GC_ROUNDS = 5;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional number of tasks
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TASKS;
+        String[] descriptions = new String[count];
+        for (int i = 0; i < count; i++) {
+            descriptions[i] = "task " + i;
+        }
+
+        long baseline = usedHeap();
+        List<Task> objects = generate(descriptions);
+        long objectBytes = usedHeap() - baseline;
+        int objectCount = objects.size();
+        objects = null;
+
+        baseline = usedHeap();
+        ColumnarTaskList columnar = new ColumnarTaskList(generate(descriptions));
+        long columnarBytes = usedHeap() - baseline;
+
+        System.out.printf("%-12s %,14d bytes %,8.1f bytes/task%n", "ArrayList", objectBytes,
+                (double) objectBytes / objectCount);
+        System.out.printf("%-12s %,14d bytes %,8.1f bytes/task%n", "columnar", columnarBytes,
+                (double) columnarBytes / columnar.size());
+    }
+
+    private static List<Task> generate(String[] descriptions) {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+        List<Task> tasks = new ArrayList<>(descriptions.length);
+        for (int i = 0; i < descriptions.length; i++) {
+            LocalDateTime at = base.plusMinutes(i);
+            switch (i % 3) {
+                case 0:
+                    tasks.add(new Todo(descriptions[i]));
+                    break;
+                case 1:
+                    tasks.add(new Deadline(descriptions[i], at));
+                    break;
+                default:
+                    tasks.add(new Event(descriptions[i], at, at.plusHours(1)));
+                    break;
+            }
+        }
+        return tasks;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,57 @@
+package maybeweijun.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarTaskListTest {
+
+    private static List<Task> sample() {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("submit report", "2025-01-02 1230"));
+        tasks.add(new Event("meeting", "2025-01-03 0900", "2025-01-03 1000"));
+        tasks.add(new Deadline("old", "1969-07-20 2017"));
+        tasks.get(1).mark();
+        return tasks;
+    }
+
+    @Test
+    void get_materializesSameStateAsOriginal() {
+        List<Task> tasks = sample();
+        ColumnarTaskList columnar = new ColumnarTaskList(tasks);
+        assertEquals(tasks.size(), columnar.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).getClass(), columnar.get(i).getClass());
+            assertEquals(tasks.get(i).toString(), columnar.get(i).toString());
+        }
+    }
+
+    @Test
+    void remove_shiftsEveryColumnIncludingDoneBits() {
+        ColumnarTaskList columnar = new ColumnarTaskList(sample());
+        columnar.remove(0);
+        assertEquals(3, columnar.size());
+        assertTrue(columnar.isDone(0));
+        assertFalse(columnar.isDone(2));
+        assertEquals("meeting", columnar.getDescription(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> columnar.get(3));
+    }
+
+    @Test
+    void mark_changesStoredStateNotMaterializedCopies() {
+        ColumnarTaskList columnar = new ColumnarTaskList();
+        for (int i = 0; i < 100; i++) {
+            columnar.add(new Todo("t" + i));
+        }
+        columnar.get(50).mark();
+        assertFalse(columnar.isDone(50));
+        columnar.mark(50);
+        assertTrue(columnar.toList().get(50).isDone());
+        columnar.unmark(50);
+        assertFalse(columnar.isDone(50));
+    }
+}
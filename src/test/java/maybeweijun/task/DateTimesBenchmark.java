@@ -0,0 +1,66 @@
+package maybeweijun.task;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Compares {@link DateTimes} with a {@link DateTimeFormatter} for the {@code yyyy-MM-dd HHmm} layout.
+ *
+ * <p>Not a unit test; run manually, e.g. {@code java ... maybeweijun.task.DateTimesBenchmark 2000000}.
+ */
+public class DateTimesBenchmark {
+    private static final int DEFAULT_VALUES = 1_000_000;
+    private static final int ROUNDS = 5;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(DateTimes.PATTERN);
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optional number of values per round
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_VALUES;
+        LocalDateTime[] values = new LocalDateTime[count];
+        String[] texts = new String[count];
+        LocalDateTime dateTime = LocalDateTime.of(2000, 1, 1, 0, 0);
+        for (int i = 0; i < count; i++) {
+            values[i] = dateTime;
+            texts[i] = dateTime.format(FORMATTER);
+            dateTime = dateTime.plusMinutes(997);
+        }
+
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String text : texts) {
+                sink += LocalDateTime.parse(text, FORMATTER).getMinute();
+            }
+            long formatterParse = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (String text : texts) {
+                sink += DateTimes.parse(text).getMinute();
+            }
+            long handParse = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (LocalDateTime value : values) {
+                sink += value.format(FORMATTER).length();
+            }
+            long formatterFormat = System.nanoTime() - start;
+
+            StringBuilder sb = new StringBuilder();
+            start = System.nanoTime();
+            for (LocalDateTime value : values) {
+                sb.setLength(0);
+                sink += DateTimes.formatTo(value, sb).length();
+            }
+            long handFormat = System.nanoTime() - start;
+
+            System.out.printf("round %d: parse %6.1f vs %6.1f ns, format %6.1f vs %6.1f ns (formatter vs DateTimes)%n",
+                    round, (double) formatterParse / count, (double) handParse / count,
+                    (double) formatterFormat / count, (double) handFormat / count);
+        }
+        System.out.println("checksum " + sink);
+    }
+}
@@ -0,0 +1,52 @@
+package maybeweijun.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateTimesTest {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(DateTimes.PATTERN);
+
+    @Test
+    void parseAndFormat_agreeWithDateTimeFormatter() {
+        LocalDateTime dateTime = LocalDateTime.of(1, 1, 1, 0, 0);
+        for (int i = 0; i < 2000; i++) {
+            String text = dateTime.format(FORMATTER);
+            assertEquals(text, DateTimes.format(dateTime));
+            assertEquals(dateTime, DateTimes.parse(text));
+            dateTime = dateTime.plusDays(397).plusMinutes(61);
+        }
+        assertEquals(LocalDateTime.of(2024, 2, 29, 23, 59), DateTimes.parse("2024-02-29 2359"));
+    }
+
+    @Test
+    void parse_invalidValues_throw() {
+        for (String text : new String[] {"2023-02-29 1200", "2025-04-31 1200", "2025-13-01 1200", "2025-01-01 2400",
+                "2025-01-01 1260", "0000-01-01 0000", "2025-1-01 1200", "2025-01-01T1200", " 2025-01-01 1200", ""}) {
+            assertThrows(DateTimeParseException.class, () -> DateTimes.parse(text));
+        }
+    }
+
+    @Test
+    void parseOrNull_charArray_agreesWithCharSequence() {
+        for (String text : new String[] {"2024-02-29 2359", "2023-02-29 1200", "2025-13-01 1200", "2025-01-01T1200",
+                "2025-1-01 1200"}) {
+            char[] buf = ("| " + text + " |").toCharArray();
+            assertEquals(DateTimes.parseOrNull(text, 0, text.length()),
+                    DateTimes.parseOrNull(buf, 2, 2 + text.length()));
+        }
+    }
+
+    @Test
+    void epochMinute_roundTripsBeforeAndAfterEpoch() {
+        LocalDateTime before = LocalDateTime.of(1969, 7, 20, 20, 17);
+        assertEquals(before, DateTimes.fromEpochMinute(DateTimes.toEpochMinute(before)));
+        assertEquals(1, DateTimes.toEpochMinute(LocalDateTime.of(1970, 1, 1, 0, 1, 59)));
+        assertEquals(-1, DateTimes.toEpochMinute(LocalDateTime.of(1969, 12, 31, 23, 59, 30)));
+    }
+}
@@ -0,0 +1,58 @@
+package maybeweijun.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineIndexTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 1, 2, 12, 0);
+
+    @Test
+    void rangeQueries_returnDeadlinesInDueOrder() {
+        Deadline b = new Deadline("b", NOON.plusHours(1));
+        Deadline a = new Deadline("a", NOON);
+        Deadline sameMinute = new Deadline("a2", NOON);
+        TaskList list = new TaskList(List.of(b, new Todo("t"), a, sameMinute));
+        DeadlineIndex index = list.getDeadlineIndex();
+
+        assertEquals(List.of(a, sameMinute, b), index.dueBetween(NOON, NOON.plusHours(1)));
+        assertEquals(List.of(a, sameMinute), index.dueBefore(NOON.plusMinutes(1)));
+        assertTrue(index.dueBefore(NOON).isEmpty());
+        assertTrue(index.dueBetween(NOON.plusDays(1), NOON).isEmpty());
+
+        list.remove(2);
+        assertEquals(List.of(sameMinute), index.dueBefore(NOON.plusMinutes(1)));
+    }
+
+    @Test
+    void overdue_tracksMarkAndUnmark() {
+        Deadline a = new Deadline("a", NOON);
+        TaskList list = new TaskList(List.of(a));
+        DeadlineIndex index = list.getDeadlineIndex();
+        assertEquals(List.of(a), index.overdue(NOON.plusDays(1)));
+
+        list.mark(0);
+        assertTrue(index.overdue(NOON.plusDays(1)).isEmpty());
+        assertEquals(List.of(a), index.dueBefore(NOON.plusDays(1)));
+
+        list.unmark(0);
+        assertEquals(List.of(a), index.overdue(NOON.plusDays(1)));
+    }
+
+    @Test
+    void pendingFrom_returnsSoonestUnfinishedFromTime() {
+        Deadline past = new Deadline("past", NOON.minusHours(1));
+        Deadline now = new Deadline("now", NOON);
+        Deadline done = new Deadline("done", NOON.plusHours(1));
+        Deadline later = new Deadline("later", NOON.plusHours(2));
+        TaskList list = new TaskList(List.of(later, done, now, past));
+        list.mark(1);
+
+        assertEquals(List.of(now, later), list.getDeadlineIndex().pendingFrom(NOON, 5));
+        assertEquals(List.of(now), list.getDeadlineIndex().pendingFrom(NOON, 1));
+    }
+}
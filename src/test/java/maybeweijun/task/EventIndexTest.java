@@ -0,0 +1,112 @@
+package maybeweijun.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    void overlapping_randomEvents_matchesScanInStartOrder() {
+        Random random = new Random(3);
+        TaskList list = new TaskList();
+        EventIndex index = list.getEventIndex();
+        for (int i = 0; i < 3000; i++) {
+            if (list.size() > 0 && random.nextInt(5) == 0) {
+                list.remove(random.nextInt(list.size()));
+                continue;
+            }
+            LocalDateTime from = BASE.plusMinutes(random.nextInt(10000));
+            list.add(new Event("e" + i, from, from.plusMinutes(1 + random.nextInt(300))));
+        }
+        assertEquals(list.size(), index.size());
+
+        for (int q = 0; q < 50; q++) {
+            LocalDateTime from = BASE.plusMinutes(random.nextInt(10000));
+            LocalDateTime to = from.plusMinutes(random.nextInt(120));
+            List<Event> expected = new ArrayList<>();
+            for (Task task : list.toList()) {
+                Event event = (Event) task;
+                if (event.getFrom().isBefore(to) && event.getTo().isAfter(from)) {
+                    expected.add(event);
+                }
+            }
+            List<Event> actual = index.overlapping(from, to);
+            assertEquals(expected.size(), actual.size());
+            assertTrue(actual.containsAll(expected));
+            for (int i = 1; i < actual.size(); i++) {
+                assertFalse(actual.get(i).getFrom().isBefore(actual.get(i - 1).getFrom()));
+            }
+        }
+    }
+
+    @Test
+    void at_treatsEndAsExclusive() {
+        Event first = new Event("first", BASE, BASE.plusHours(1));
+        Event second = new Event("second", BASE.plusHours(1), BASE.plusHours(2));
+        TaskList list = new TaskList(List.of(second, new Todo("t"), first));
+
+        assertEquals(List.of(second), list.getEventIndex().at(BASE.plusHours(1)));
+        assertEquals(List.of(first), list.getEventIndex().at(BASE));
+        assertTrue(list.getEventIndex().at(BASE.plusHours(2)).isEmpty());
+    }
+
+    @Test
+    void freeSlots_stopsAtLimitAndIncludesTail() {
+        TaskList list = new TaskList();
+        for (int hour = 0; hour < 10; hour += 2) {
+            list.add(new Event("e" + hour, BASE.plusHours(hour), BASE.plusHours(hour + 1)));
+        }
+        EventIndex index = list.getEventIndex();
+
+        List<TimeSlot> slots = index.freeSlots(BASE, BASE.plusHours(12), 60, 3);
+        assertEquals(3, slots.size());
+        assertEquals(BASE.plusHours(1), slots.get(0).getStart());
+        assertEquals(BASE.plusHours(6), slots.get(2).getEnd());
+
+        List<TimeSlot> tail = index.freeSlots(BASE.plusHours(8), BASE.plusHours(12), 90, 10);
+        assertEquals(1, tail.size());
+        assertEquals(BASE.plusHours(9), tail.get(0).getStart());
+    }
+
+    @Test
+    void pendingFrom_skipsDoneAndEndedEvents() {
+        Event ended = new Event("ended", BASE, BASE.plusHours(1));
+        Event ongoing = new Event("ongoing", BASE, BASE.plusHours(3));
+        Event done = new Event("done", BASE.plusHours(2), BASE.plusHours(3));
+        Event later = new Event("later", BASE.plusHours(4), BASE.plusHours(5));
+        TaskList list = new TaskList(List.of(later, done, ongoing, ended));
+        list.mark(1);
+
+        assertEquals(List.of(ongoing, later), list.getEventIndex().pendingFrom(BASE.plusHours(1), 5));
+        assertEquals(List.of(ongoing), list.getEventIndex().pendingFrom(BASE.plusHours(1), 1));
+    }
+
+    @Test
+    void pendingFrom_followsMarkAndUnmark() {
+        TaskList list = new TaskList();
+        for (int i = 0; i < 200; i++) {
+            list.add(new Event("e" + i, BASE.plusHours(i), BASE.plusHours(i + 1)));
+            if (i < 199) {
+                list.mark(i);
+            }
+        }
+        EventIndex index = list.getEventIndex();
+        assertEquals(List.of(list.get(199)), index.pendingFrom(BASE, 5));
+
+        list.unmark(50);
+        list.mark(199);
+        assertEquals(List.of(list.get(50)), index.pendingFrom(BASE, 5));
+
+        list.remove(50);
+        assertTrue(index.pendingFrom(BASE, 5).isEmpty());
+        assertEquals(199, index.size());
+    }
+}
@@ -0,0 +1,86 @@
+package maybeweijun.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskListTest {
+
+    @Test
+    void randomEdits_matchArrayList() {
+        Random random = new Random(42);
+        List<Task> expected = new ArrayList<>();
+        TaskList list = new TaskList();
+        for (int step = 0; step < 5000; step++) {
+            if (expected.isEmpty() || random.nextInt(3) != 0) {
+                Task task = new Todo("t" + step);
+                expected.add(task);
+                list.add(task);
+            } else {
+                int index = random.nextInt(expected.size());
+                assertSame(expected.remove(index), list.remove(index));
+            }
+        }
+        assertEquals(expected.size(), list.size());
+        assertEquals(expected, new ArrayList<>(list.toList()));
+        for (int i = 0; i < expected.size(); i += 37) {
+            assertSame(expected.get(i), list.get(i));
+            assertEquals(i, list.indexOfId(expected.get(i).getId()));
+        }
+    }
+
+    @Test
+    void ids_stayStableAcrossDeletes() {
+        Task first = new Todo("first");
+        Task second = new Todo("second");
+        Task third = new Todo("third");
+        TaskList list = new TaskList(List.of(first, second, third));
+
+        list.remove(0);
+        assertSame(third, list.getById(third.getId()));
+        assertEquals(1, list.indexOfId(third.getId()));
+        assertEquals(-1, list.indexOfId(first.getId()));
+        assertNull(list.getById(first.getId()));
+
+        assertSame(second, list.removeById(second.getId()));
+        assertEquals(0, list.indexOfId(third.getId()));
+        assertNull(list.removeById(second.getId()));
+    }
+
+    @Test
+    void mutations_recordPositions() {
+        TaskList list = new TaskList(List.of(new Todo("a"), new Todo("b")));
+        list.add(new Todo("c"));
+        list.mark(2);
+        list.remove(0);
+
+        List<TaskMutation> mutations = list.drainMutations();
+        assertEquals(3, mutations.size());
+        assertEquals(2, mutations.get(0).getIndex());
+        assertEquals(TaskMutation.Kind.MARK, mutations.get(1).getKind());
+        assertEquals(0, mutations.get(2).getIndex());
+        assertFalse(list.isDirty());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.remove(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.mark(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+    }
+
+    @Test
+    void constructor_largeList_buildsBalancedTreeInOrder() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            tasks.add(new Todo("t" + i));
+        }
+        TaskList list = new TaskList(tasks);
+        assertEquals(tasks.size(), list.size());
+        assertSame(tasks.get(54321), list.get(54321));
+        assertEquals(99999, list.indexOfId(tasks.get(99999).getId()));
+        assertSame(tasks.get(1), list.remove(1));
+        assertSame(tasks.get(2), list.get(1));
+    }
+}
@@ -0,0 +1,64 @@
+package maybeweijun.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSorterTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    void sort_multipleKeys_matchesComparatorSort() {
+        Random random = new Random(11);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Task task;
+            switch (random.nextInt(3)) {
+                case 0:
+                    task = new Todo("t" + random.nextInt(50));
+                    break;
+                case 1:
+                    task = new Deadline("D" + random.nextInt(50), BASE.plusMinutes(random.nextInt(200000)));
+                    break;
+                default:
+                    LocalDateTime from = BASE.minusMinutes(random.nextInt(200000));
+                    task = new Event("e" + random.nextInt(50), from, from.plusHours(1));
+                    break;
+            }
+            if (random.nextBoolean()) {
+                task.mark();
+            }
+            tasks.add(task);
+        }
+
+        Comparator<Task> expected = Comparator.<Task>comparingInt(t -> t.isDone() ? 0 : 1)
+                .thenComparing(t -> t.getDescription().toLowerCase(), Comparator.reverseOrder())
+                .thenComparingInt(CategoryIndex::categoryOf);
+        List<Task> sortedCopy = new ArrayList<>(tasks);
+        sortedCopy.sort(expected);
+
+        List<SortKey> keys = List.of(new SortKey(SortKey.Field.STATUS, true),
+                new SortKey(SortKey.Field.DESCRIPTION, true), new SortKey(SortKey.Field.TYPE, false));
+        assertEquals(sortedCopy, TaskSorter.sort(tasks, keys));
+    }
+
+    @Test
+    void sort_byDate_putsUndatedTasksLastInBothDirections() {
+        Task todo = new Todo("t");
+        Task soon = new Deadline("soon", BASE);
+        Task later = new Event("later", BASE.plusDays(1), BASE.plusDays(2));
+        List<Task> tasks = List.of(todo, later, soon);
+
+        SortKey ascending = new SortKey(SortKey.Field.DATE, false);
+        SortKey descending = new SortKey(SortKey.Field.DATE, true);
+        assertEquals(List.of(soon, later, todo), TaskSorter.sort(tasks, List.of(ascending)));
+        assertEquals(List.of(later, soon, todo), TaskSorter.sort(tasks, List.of(descending)));
+    }
+}
@@ -16,5 +16,13 @@ public class TodoTest {
         assertEquals("test", t1.getDescription());
     }
 
-
+    @Test
+    public void renderToTest() {
+        Todo t1 = new Todo("test");
+        assertEquals(t1.toString(), t1.renderTo(new StringBuilder()).toString());
+        t1.mark();
+        assertEquals(t1.toString(), t1.renderTo(new StringBuilder()).toString());
+        t1.unmark();
+        assertEquals("[T][ ] test", t1.renderTo(new StringBuilder()).toString());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package maybeweijun.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private static List<Task> scan(TaskList list, String needle) {
+        List<Task> found = new ArrayList<>();
+        for (Task task : list.toList()) {
+            if (task.getDescription().toLowerCase().contains(needle)) {
+                found.add(task);
+            }
+        }
+        return found;
+    }
+
+    private static List<Task> viaIndex(TaskList list, String needle) {
+        long[] candidates = list.getTrigramIndex().candidates(needle);
+        List<Task> found = new ArrayList<>();
+        for (Task task : list.inListOrder(candidates).toList()) {
+            if (task.getDescription().toLowerCase().contains(needle)) {
+                found.add(task);
+            }
+        }
+        return found;
+    }
+
+    @Test
+    void candidates_afterRandomEdits_verifyToSameResultAsScan() {
+        Random random = new Random(7);
+        String alphabet = "abcAB ";
+        TaskList list = new TaskList();
+        list.getTrigramIndex();
+        for (int step = 0; step < 2000; step++) {
+            if (list.size() > 0 && random.nextInt(4) == 0) {
+                list.remove(random.nextInt(list.size()));
+                continue;
+            }
+            StringBuilder description = new StringBuilder();
+            for (int i = random.nextInt(12); i >= 0; i--) {
+                description.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            list.add(new Todo(description.toString()));
+        }
+        for (String needle : List.of("abc", "bab", "a b", "ccc", "cabca", "zzz")) {
+            assertEquals(scan(list, needle), viaIndex(list, needle), needle);
+        }
+    }
+
+    @Test
+    void candidates_shortNeedleOrOverBudget_returnsNull() {
+        TaskList list = new TaskList(List.of(new Todo("read book")));
+        assertNull(list.getTrigramIndex().candidates("bo"));
+
+        TrigramIndex tiny = list.attach(new TrigramIndex(100));
+        assertTrue(tiny.isOverBudget());
+        assertNull(tiny.candidates("book"));
+        list.add(new Todo("more"));
+        assertNull(tiny.candidates("more"));
+    }
+
+    @Test
+    void getTrigramIndex_overBudgetThenShrunk_rebuildsUnderConfiguredBudget() {
+        TaskList list = new TaskList();
+        list.setTrigramBudget(4_000);
+        for (int i = 0; i < 20; i++) {
+            list.add(new Todo("task number " + i));
+        }
+        assertTrue(list.getTrigramIndex().isOverBudget());
+        assertNull(list.getTrigramIndex().candidates("number"));
+
+        for (int i = 0; i < 15; i++) {
+            list.remove(0);
+        }
+        TrigramIndex rebuilt = list.getTrigramIndex();
+        assertFalse(rebuilt.isOverBudget());
+        assertEquals(scan(list, "number 1"), viaIndex(list, "number 1"));
+        assertEquals(5, list.inListOrder(rebuilt.candidates("number")).size());
+    }
+}
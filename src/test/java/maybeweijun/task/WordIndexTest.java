@@ -0,0 +1,45 @@
+package maybeweijun.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WordIndexTest {
+
+    @Test
+    void tokenize_lowercasesSplitsAndDeduplicates() {
+        assertEquals(List.of("cs2103", "quiz", "week", "3"), WordIndex.tokenize("CS2103 quiz, week-3 QUIZ"));
+        assertTrue(WordIndex.tokenize("  --  ").isEmpty());
+    }
+
+    @Test
+    void findAllAndFindAny_followAddsAndRemoves() {
+        Task a = new Todo("read book");
+        Task b = new Todo("read notes");
+        Task c = new Todo("book flight");
+        TaskList list = new TaskList(List.of(a, b));
+        WordIndex index = list.getWordIndex();
+        list.add(c);
+
+        assertArrayEquals(new long[] {a.getId()}, index.findAll(List.of("read", "book")));
+        assertArrayEquals(new long[] {a.getId(), b.getId(), c.getId()}, index.findAny(List.of("book", "read")));
+
+        list.remove(0);
+        assertArrayEquals(new long[0], index.findAll(List.of("read", "book")));
+        assertArrayEquals(new long[] {c.getId()}, index.findAll(List.of("book")));
+        assertArrayEquals(new long[0], index.findAny(List.of("missing")));
+    }
+
+    @Test
+    void inListOrder_followsPositionsNotIds() {
+        Task late = new Todo("late");
+        Task early = new Todo("early");
+        TaskList list = new TaskList(List.of(early, late));
+        TaskList ordered = list.inListOrder(new long[] {late.getId(), early.getId(), 0});
+        assertEquals(2, ordered.size());
+        assertSame(early, ordered.get(0));
+        assertSame(late, ordered.get(1));
+    }
+}